@@ -0,0 +1,122 @@
+package com.paymentpanel.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many connections are checked out at once. A permit is taken
+ * when a connection is requested and given back when it is closed, so only
+ * work that actually needs the database waits; cache hits and idle streams
+ * never do. Waiting threads park on a fair semaphore, which costs a virtual
+ * thread almost nothing, and a thread that cannot get a permit in time
+ * fails with a transient connection error (answered with 503).
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource implements DisposableBean {
+    
+    private final Semaphore permits;
+    
+    private final long permitTimeoutMillis;
+    
+    public ConnectionLimitingDataSource(DataSource targetDataSource, int maxConnections, long permitTimeoutMillis) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConnections, true);
+        this.permitTimeoutMillis = permitTimeoutMillis;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    // Replaces the wrapped bean in the context, so its shutdown is passed on
+    @Override
+    public void destroy() throws Exception {
+        DataSource target = obtainTargetDataSource();
+        if (target instanceof DisposableBean disposable) {
+            disposable.destroy();
+        } else if (target instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+    
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+    
+    // Helper methods
+    private void acquire() throws SQLException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(permitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        
+        if (!acquired) {
+            throw new SQLTransientConnectionException("Server is busy, no database connection within "
+                    + permitTimeoutMillis + " ms");
+        }
+    }
+    
+    // The permit goes back on the first close; later calls are passed through as no-ops by the pool
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,65 @@
+package com.paymentpanel.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import javax.sql.DataSource;
+
+/**
+ * Request execution mode.
+ *
+ * With spring.threads.virtual.enabled=true Spring Boot runs Tomcat requests
+ * and the @Async executor on virtual threads. Virtual threads are not pooled,
+ * so nothing stops thousands of requests from queueing on Hikari at once;
+ * in that mode the application DataSource is wrapped in a
+ * {@link ConnectionLimitingDataSource}, which caps checked-out connections
+ * at the pool size instead. Requests that never need a connection, such as
+ * tracking cache hits, are not limited.
+ */
+@Configuration
+@EnableAsync
+public class ExecutionModeConfig {
+    
+    // Hikari's default maximum pool size
+    private static final int DEFAULT_POOL_SIZE = 10;
+    
+    // Static, so the post-processor exists before the DataSource bean is created
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                
+                // 0 means one permit per pooled connection
+                int maxConnections = environment.getProperty("execution.max-concurrent-connections", Integer.class, 0);
+                long permitTimeoutMillis = environment.getProperty("execution.permit-timeout-ms", Long.class, 5000L);
+                int permits = maxConnections > 0 ? maxConnections : connectionPoolSize(dataSource);
+                
+                return new ConnectionLimitingDataSource(dataSource, permits, permitTimeoutMillis);
+            }
+        };
+    }
+    
+    private static int connectionPoolSize(DataSource dataSource) {
+        try {
+            int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            // Unset until the pool starts when maximum-pool-size is not configured
+            if (poolSize > 0) {
+                return poolSize;
+            }
+        } catch (Exception e) {
+            // Not a Hikari pool, fall through
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
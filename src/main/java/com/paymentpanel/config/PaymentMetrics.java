@@ -0,0 +1,175 @@
+package com.paymentpanel.config;
+
+import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.exception.ResourceNotFoundException;
+import com.paymentpanel.exception.ValidationException;
+import com.paymentpanel.model.Transaction;
+import com.paymentpanel.repository.TransactionRepository;
+import com.paymentpanel.service.StatisticsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics for the payment hot paths, exposed through /actuator/prometheus.
+ *
+ * Service calls are timed around the transactional proxy, so the timings
+ * include the commit. Each call is tagged with its outcome and, where the
+ * call resolved one, the bank account. The bank account tag is only taken
+ * from the returned response or a loaded transaction, never from the
+ * client's request, so unknown ids cannot create new series.
+ *
+ * Meters are registered once per tag combination and then taken from a
+ * local map, so the hot path does not build and look up a meter per call.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PaymentMetrics {
+    
+    private static final Logger log = LoggerFactory.getLogger(PaymentMetrics.class);
+    
+    private static final String NO_BANK_ACCOUNT = "none";
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    
+    private final Map<String, Counter> createdAmountCounters = new ConcurrentHashMap<>();
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    public PaymentMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        
+        Gauge.builder("payment.transactions.pending", this, PaymentMetrics::pendingCount)
+                .description("Transactions waiting for approval (from the daily statistics)")
+                .register(meterRegistry);
+        
+        Gauge.builder("payment.transactions.pending.oldest.age", this, PaymentMetrics::oldestPendingAgeSeconds)
+                .description("Age of the oldest pending transaction")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+    
+    @Around("execution(public * com.paymentpanel.service.TransactionService.createTransaction(..))"
+            + " || execution(public * com.paymentpanel.service.TransactionService.approveTransaction(..))"
+            + " || execution(public * com.paymentpanel.service.TransactionService.rejectTransaction(..))"
+            + " || execution(public * com.paymentpanel.service.TransactionService.confirmPaymentByUser(..))")
+    public Object timeTransactionCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("payment.transaction.operations", joinPoint);
+    }
+    
+    @Around("execution(public void com.paymentpanel.service.StatisticsService.update*(..))"
+            + " || execution(public void com.paymentpanel.service.StatisticsService.incrementPendingTransactionCount(..))"
+            + " || execution(public void com.paymentpanel.service.StatisticsService.flushStatistics())")
+    public Object timeStatisticsCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("payment.statistics.operations", joinPoint);
+    }
+    
+    // Helper methods
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        Object result = null;
+        String outcome = "success";
+        
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (ValidationException e) {
+            outcome = "invalid";
+            throw e;
+        } catch (ResourceNotFoundException e) {
+            outcome = "not_found";
+            throw e;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            String bankAccount = "success".equals(outcome)
+                    ? bankAccountTag(joinPoint.getArgs(), result)
+                    : NO_BANK_ACCOUNT;
+            
+            timers.computeIfAbsent(new TimerKey(name, operation, outcome, bankAccount), this::registerTimer)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            
+            if ("createTransaction".equals(operation) && result instanceof TransactionResponse created) {
+                createdAmountCounters.computeIfAbsent(bankAccount, this::registerCreatedAmountCounter)
+                        .increment(created.getAmount().doubleValue());
+            }
+        }
+    }
+    
+    private Timer registerTimer(TimerKey key) {
+        return Timer.builder(key.name())
+                .tag("operation", key.operation())
+                .tag("outcome", key.outcome())
+                .tag("bank_account", key.bankAccount())
+                .register(meterRegistry);
+    }
+    
+    private Counter registerCreatedAmountCounter(String bankAccount) {
+        return Counter.builder("payment.transactions.created.amount")
+                .description("Sum of created transaction amounts")
+                .tag("bank_account", bankAccount)
+                .register(meterRegistry);
+    }
+    
+    private static String bankAccountTag(Object[] args, Object result) {
+        if (result instanceof TransactionResponse response && response.getBankAccountId() != null) {
+            return response.getBankAccountId().toString();
+        }
+        
+        for (Object arg : args) {
+            // Only the id of the bank account proxy is read, it is never initialized
+            if (arg instanceof Transaction transaction && transaction.getBankAccount() != null) {
+                return String.valueOf(transaction.getBankAccount().getId());
+            }
+        }
+        
+        return NO_BANK_ACCOUNT;
+    }
+    
+    private double pendingCount() {
+        try {
+            return statisticsService.getApproximateTransactionCount("PENDING");
+        } catch (RuntimeException e) {
+            log.debug("Could not read the pending count: {}", e.getMessage());
+            return Double.NaN;
+        }
+    }
+    
+    private double oldestPendingAgeSeconds() {
+        try {
+            LocalDateTime oldest = transactionRepository.findOldestCreatedAtByStatus("PENDING");
+            return oldest != null ? Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0 : 0;
+        } catch (RuntimeException e) {
+            log.debug("Could not read the oldest pending transaction: {}", e.getMessage());
+            return Double.NaN;
+        }
+    }
+    
+    private record TimerKey(String name, String operation, String outcome, String bankAccount) {
+    }
+}
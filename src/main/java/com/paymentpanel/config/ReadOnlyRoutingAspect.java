@@ -0,0 +1,43 @@
+package com.paymentpanel.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+
+/**
+ * Lets @Transactional(readOnly = true) service methods read from a replica.
+ *
+ * Spring Data wraps plain repository calls in read-only transactions of its
+ * own, so the transaction's read-only flag alone would also move lookups such
+ * as transaction tracking onto the replicas. Only service methods declared
+ * read-only are routed. Runs outside the transaction interceptor, so the
+ * setting is in place before the transaction takes its connection. That
+ * needs spring.jpa.open-in-view=false; an open-in-view session would hold
+ * on to whichever connection the request's first transaction took.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReadOnlyRoutingAspect {
+    
+    @Around("execution(public * com.paymentpanel.service..*(..))"
+            + " && @annotation(org.springframework.transaction.annotation.Transactional)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Transactional transactional = AnnotationUtils.findAnnotation(method, Transactional.class);
+        
+        // Write methods reset the setting, so REQUIRES_NEW work started from a read-only method uses the primary
+        boolean previous = ReplicaRoutingDataSource.setReplicaReadsAllowed(transactional != null && transactional.readOnly());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRoutingDataSource.setReplicaReadsAllowed(previous);
+        }
+    }
+}
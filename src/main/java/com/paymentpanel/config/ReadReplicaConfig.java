@@ -0,0 +1,78 @@
+package com.paymentpanel.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas, enabled by listing their JDBC URLs in replicas.urls.
+ *
+ * The primary pool is still configured through spring.datasource. The
+ * DataSource the application uses is a {@link ReplicaRoutingDataSource} over
+ * the primary and one pool per replica; with no replicas configured none of
+ * this is created and every query goes to the primary as before.
+ */
+@Configuration
+@ConditionalOnExpression("!'${replicas.urls:}'.isBlank()")
+public class ReadReplicaConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+                                               @Value("${replicas.urls}") String[] urls,
+                                               @Value("${replicas.username:${spring.datasource.username:}}") String username,
+                                               @Value("${replicas.password:${spring.datasource.password:}}") String password,
+                                               @Value("${replicas.maximum-pool-size:10}") int maximumPoolSize,
+                                               @Value("${replicas.connection-timeout-ms:2000}") long connectionTimeoutMillis,
+                                               @Value("${replicas.max-lag-ms:1000}") long maxLagMillis,
+                                               @Value("${replicas.lag-check-ms:1000}") long lagCheckMillis,
+                                               @Value("${replicas.max-check-age-ms:5000}") long maxCheckAgeMillis) {
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + replicaPools.size());
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setMaximumPoolSize(maximumPoolSize);
+            // Short, so an unreachable replica is skipped quickly instead of holding up the lag checks
+            pool.setConnectionTimeout(connectionTimeoutMillis);
+            pool.setReadOnly(true);
+            replicaPools.add(pool);
+        }
+        
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaPools, maxLagMillis, lagCheckMillis,
+                maxCheckAgeMillis);
+    }
+    
+    @Bean
+    public ReadOnlyRoutingAspect readOnlyRoutingAspect() {
+        return new ReadOnlyRoutingAspect();
+    }
+    
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${replicas.read-your-writes-ms:5000}") long windowMillis) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(windowMillis));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
@@ -0,0 +1,71 @@
+package com.paymentpanel.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Keeps a client's reads on the primary for a while after it writes, so it
+ * sees its own changes even while the replicas catch up.
+ *
+ * Write requests are answered with a cookie holding the time of the write,
+ * and requests that carry a cookie younger than the window are pinned to the
+ * primary. The cookie travels with the client, so this holds across nodes;
+ * clients that drop cookies are only protected by the replica lag limit.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    
+    public static final String LAST_WRITE_COOKIE = "last-write";
+    
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    
+    private final long windowMillis;
+    
+    public ReadYourWritesFilter(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        
+        long now = System.currentTimeMillis();
+        
+        if (!READ_METHODS.contains(request.getMethod())) {
+            // Set before the handler runs, while the response can still take headers
+            Cookie cookie = new Cookie(LAST_WRITE_COOKIE, Long.toString(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) ((windowMillis + 999) / 1000));
+            response.addCookie(cookie);
+            request.setAttribute(ReplicaRoutingDataSource.PRIMARY_ONLY_ATTRIBUTE, Boolean.TRUE);
+        } else if (lastWrite(request) > now - windowMillis) {
+            request.setAttribute(ReplicaRoutingDataSource.PRIMARY_ONLY_ATTRIBUTE, Boolean.TRUE);
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+    
+    private static long lastWrite(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        
+        for (Cookie cookie : request.getCookies()) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,197 @@
+package com.paymentpanel.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the connections of read-only service transactions to a read replica
+ * and everything else to the primary.
+ *
+ * Replicas take turns, and a replica is only used while its measured
+ * replication lag is within the configured maximum and that measurement is
+ * recent. The lag checks run on a thread of their own, so a long scheduled
+ * job cannot leave an old measurement in place; should the checks stall
+ * anyway, the replica stops serving reads once its last check is older than
+ * replicas.max-check-age-ms. Requests pinned by
+ * {@link ReadYourWritesFilter} always read from the primary, as does every
+ * read when no replica is fit to serve it. Which calls may read from a
+ * replica is decided by {@link ReadOnlyRoutingAspect}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    // Request attribute marking a request whose reads must see the primary
+    public static final String PRIMARY_ONLY_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".PRIMARY_ONLY";
+    
+    private static final String PRIMARY = "primary";
+    
+    // A standby that has replayed everything it received from a live stream is current, however old its last commit
+    private static final String LAG_QUERY = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() THEN 0"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn()"
+            + " AND EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN 0"
+            + " ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint END";
+    
+    private static final long UNKNOWN_LAG = Long.MAX_VALUE;
+    
+    private static final ThreadLocal<Boolean> replicaReadsAllowed = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    
+    private final List<Replica> replicas = new ArrayList<>();
+    
+    private final long maxLagMillis;
+    
+    private final long lagCheckMillis;
+    
+    private final long maxCheckAgeNanos;
+    
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    
+    private final ScheduledExecutorService lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools, long maxLagMillis,
+                                    long lagCheckMillis, long maxCheckAgeMillis) {
+        this.maxLagMillis = maxLagMillis;
+        this.lagCheckMillis = lagCheckMillis;
+        this.maxCheckAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxCheckAgeMillis);
+        
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (HikariDataSource pool : replicaPools) {
+            targets.put(pool.getPoolName(), pool);
+            replicas.add(new Replica(pool));
+        }
+        
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+    
+    // Allow or forbid replica reads on the current thread; returns the previous setting so callers can restore it
+    public static boolean setReplicaReadsAllowed(boolean allowed) {
+        boolean previous = replicaReadsAllowed.get();
+        replicaReadsAllowed.set(allowed);
+        return previous;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicationLagSafely, 0, lagCheckMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    // Measure how far each replica is behind; replicas start out unused until their first check
+    public void checkReplicationLag() {
+        for (Replica replica : replicas) {
+            long lag;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                lag = measureLag(connection);
+            } catch (SQLException | RuntimeException e) {
+                log.debug("Could not check replica {}: {}", replica.dataSource.getPoolName(), e.getMessage());
+                lag = UNKNOWN_LAG;
+            }
+            
+            boolean wasUsable = replica.lagMillis <= maxLagMillis;
+            replica.lagMillis = lag;
+            replica.checkedAtNanos = System.nanoTime();
+            if (wasUsable && lag > maxLagMillis) {
+                log.warn("Replica {} is {} behind, reading from the primary instead", replica.dataSource.getPoolName(),
+                        lag == UNKNOWN_LAG ? "unreachable or an unknown time" : lag + " ms");
+            } else if (!wasUsable && lag <= maxLagMillis) {
+                log.info("Replica {} is serving reads, {} ms behind", replica.dataSource.getPoolName(), lag);
+            }
+        }
+    }
+    
+    // A DisposableBean rather than @PreDestroy, so a ConnectionLimitingDataSource around it can pass shutdown on
+    @Override
+    public void destroy() {
+        lagChecker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!replicaReadsAllowed.get() || isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+        
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (isUsable(replica)) {
+                return replica.dataSource.getPoolName();
+            }
+        }
+        return PRIMARY;
+    }
+    
+    // Helper methods
+    private void checkReplicationLagSafely() {
+        // An exception escaping a fixed-delay task would cancel every later check
+        try {
+            checkReplicationLag();
+        } catch (RuntimeException e) {
+            log.error("Replica lag check failed", e);
+        }
+    }
+    
+    private boolean isUsable(Replica replica) {
+        return replica.lagMillis <= maxLagMillis && System.nanoTime() - replica.checkedAtNanos <= maxCheckAgeNanos;
+    }
+    
+    private static boolean isPinnedToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && attributes.getAttribute(PRIMARY_ONLY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+    
+    private static long measureLag(Connection connection) throws SQLException {
+        // Stand-ins for local testing (e.g. a second H2 database) have no replication to measure
+        if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return 0;
+        }
+        
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            resultSet.next();
+            long lag = resultSet.getLong(1);
+            return resultSet.wasNull() ? UNKNOWN_LAG : Math.max(0, lag);
+        }
+    }
+    
+    private static final class Replica {
+        
+        private final HikariDataSource dataSource;
+        
+        private volatile long lagMillis = UNKNOWN_LAG;
+        
+        private volatile long checkedAtNanos;
+        
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -4,15 +4,23 @@ import java.time.LocalDate;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;  
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.paymentpanel.dto.response.CacheStatisticsResponse;
+import com.paymentpanel.dto.response.ProcessingTimeResponse;
+import com.paymentpanel.dto.response.StatisticsRebuildResponse;
 import com.paymentpanel.dto.response.StatisticsResponse;
+import com.paymentpanel.service.StatisticsRebuilder;
 import com.paymentpanel.service.StatisticsService;
+import com.paymentpanel.service.TransactionTrackingCache;
 
 @RestController
 @RequestMapping("/api/admin/dashboard")
@@ -22,6 +30,12 @@ public class AdminDashboardController {
     @Autowired
     private StatisticsService statisticsService;
     
+    @Autowired
+    private StatisticsRebuilder statisticsRebuilder;
+    
+    @Autowired
+    private TransactionTrackingCache transactionTrackingCache;
+    
     @GetMapping("/statistics/today")
     public ResponseEntity<StatisticsResponse> getTodayStatistics() {
         StatisticsResponse statistics = statisticsService.getStatisticsByDate(LocalDate.now());
@@ -38,8 +52,47 @@ public class AdminDashboardController {
     @GetMapping("/statistics/range")
     public ResponseEntity<List<StatisticsResponse>> getStatisticsForDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        List<StatisticsResponse> statistics = statisticsService.getStatisticsForDateRange(startDate, endDate);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "day") String granularity) {
+        List<StatisticsResponse> statistics = statisticsService.getStatisticsForDateRange(startDate, endDate, granularity);
         return ResponseEntity.ok(statistics);
     }
+    
+    @GetMapping("/statistics/range/processing-times")
+    public ResponseEntity<ProcessingTimeResponse> getProcessingTimesForDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        ProcessingTimeResponse processingTimes = statisticsService.getProcessingTimesForDateRange(startDate, endDate);
+        return ResponseEntity.ok(processingTimes);
+    }
+    
+    // Recompute the statistics of a date range from the transactions; runs in the background
+    @PostMapping("/statistics/rebuild")
+    public ResponseEntity<StatisticsRebuildResponse> rebuildStatistics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        StatisticsRebuildResponse rebuild = statisticsRebuilder.start(startDate, endDate);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(rebuild);
+    }
+    
+    @GetMapping("/statistics/rebuild")
+    public ResponseEntity<StatisticsRebuildResponse> getStatisticsRebuildProgress() {
+        return ResponseEntity.ok(statisticsRebuilder.getProgress());
+    }
+    
+    @GetMapping("/cache/tracking")
+    public ResponseEntity<CacheStatisticsResponse> getTrackingCacheStatistics() {
+        CacheStats stats = transactionTrackingCache.stats();
+        
+        CacheStatisticsResponse response = new CacheStatisticsResponse();
+        response.setName("tracking");
+        response.setSize(transactionTrackingCache.size());
+        response.setHitCount(stats.hitCount());
+        response.setMissCount(stats.missCount());
+        response.setHitRate(stats.hitRate());
+        response.setEvictionCount(stats.evictionCount());
+        response.setLoadFailureCount(stats.loadFailureCount());
+        
+        return ResponseEntity.ok(response);
+    }
 }
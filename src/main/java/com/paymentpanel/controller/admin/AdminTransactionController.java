@@ -1,16 +1,30 @@
 package com.paymentpanel.controller.admin;
 
+import com.paymentpanel.dto.request.BulkTransactionStatusRequest;
 import com.paymentpanel.dto.request.TransactionStatusRequest;
+import com.paymentpanel.dto.response.BulkTransactionStatusResponse;
+import com.paymentpanel.dto.response.CursorPageResponse;
 import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.service.PendingQueueFeed;
+import com.paymentpanel.service.TransactionIngestService;
 import com.paymentpanel.service.TransactionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/admin/transactions")
@@ -20,6 +34,12 @@ public class AdminTransactionController {
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private PendingQueueFeed pendingQueueFeed;
+    
+    @Autowired
+    private TransactionIngestService transactionIngestService;
+    
     @GetMapping
     public ResponseEntity<Page<TransactionResponse>> getAllTransactions(
             @RequestParam(defaultValue = "0") int page,
@@ -49,6 +69,61 @@ public class AdminTransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    @GetMapping("/keyset")
+    public ResponseEntity<CursorPageResponse<TransactionResponse>> getAllTransactionsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(defaultValue = "false") boolean includeApproximateTotal) {
+        
+        boolean ascending = Sort.Direction.fromString(direction).isAscending();
+        
+        CursorPageResponse<TransactionResponse> transactions = transactionService.getTransactionsByCursor(
+                null, cursor, size, ascending, includeApproximateTotal);
+        return ResponseEntity.ok(transactions);
+    }
+    
+    @GetMapping("/status/{status}/keyset")
+    public ResponseEntity<CursorPageResponse<TransactionResponse>> getTransactionsByStatusAndCursor(
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(defaultValue = "false") boolean includeApproximateTotal) {
+        
+        boolean ascending = Sort.Direction.fromString(direction).isAscending();
+        
+        CursorPageResponse<TransactionResponse> transactions = transactionService.getTransactionsByCursor(
+                status.toUpperCase(), cursor, size, ascending, includeApproximateTotal);
+        return ResponseEntity.ok(transactions);
+    }
+    
+    // Pending queue push feed: a "snapshot" event on connect, then batched "changes" events
+    @GetMapping(value = "/pending/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPendingQueue() {
+        return pendingQueueFeed.subscribe(size -> transactionService.getTransactionsByCursor(
+                "PENDING", null, size, false, true));
+    }
+    
+    @GetMapping("/export")
+    public void exportTransactions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long bankAccountId,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        
+        boolean csv = transactionService.isCsvExport(format);
+        String fileName = "transactions-" + startDate + "-" + endDate + (csv ? ".csv" : ".ndjson");
+        
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        
+        transactionService.exportTransactions(startDate, endDate, status != null ? status.toUpperCase() : null,
+                bankAccountId, format, response.getOutputStream());
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<TransactionResponse> getTransactionById(@PathVariable Long id) {
         TransactionResponse transaction = transactionService.getTransactionById(id);
@@ -76,4 +151,34 @@ public class AdminTransactionController {
         
         return ResponseEntity.ok(transaction);
     }
+    
+    // Create transactions from a CSV or NDJSON upload; the report is streamed back as NDJSON, one line per row
+    @PostMapping("/ingest")
+    public void ingestTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        // An unknown format or a bad CSV header is still reported as a 400
+        TransactionIngestService.Upload upload = transactionIngestService.open(format, request.getInputStream());
+        
+        response.setContentType("application/x-ndjson;charset=UTF-8");
+        transactionIngestService.ingest(upload, response.getOutputStream());
+    }
+    
+    @PutMapping("/bulk-approve")
+    public ResponseEntity<BulkTransactionStatusResponse> bulkApproveTransactions(
+            @Valid @RequestBody BulkTransactionStatusRequest request) {
+        
+        BulkTransactionStatusResponse response = transactionService.bulkApproveTransactions(request);
+        return ResponseEntity.ok(response);
+    }
+    
+    @PutMapping("/bulk-reject")
+    public ResponseEntity<BulkTransactionStatusResponse> bulkRejectTransactions(
+            @Valid @RequestBody BulkTransactionStatusRequest request) {
+        
+        BulkTransactionStatusResponse response = transactionService.bulkRejectTransactions(request);
+        return ResponseEntity.ok(response);
+    }
 }
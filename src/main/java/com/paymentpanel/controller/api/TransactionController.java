@@ -2,11 +2,16 @@ package com.paymentpanel.controller.api;
 
 import com.paymentpanel.dto.request.TransactionRequest;
 import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.service.IdempotencyService;
+import com.paymentpanel.service.TransactionRateLimiter;
 import com.paymentpanel.service.TransactionService;
+import com.paymentpanel.service.TransactionStatusStream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -18,20 +23,47 @@ import com.paymentpanel.dto.request.PaymentConfirmationRequest;
 @CrossOrigin(origins = "*")
 public class TransactionController {
     
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAY_HEADER = "Idempotent-Replayed";
+    
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private TransactionStatusStream transactionStatusStream;
+    
+    @Autowired
+    private TransactionRateLimiter transactionRateLimiter;
+    
     @PostMapping
     public ResponseEntity<TransactionResponse> createTransaction(
             @Valid @RequestBody TransactionRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             HttpServletRequest servletRequest) {
         
         // Set IP and user agent
         request.setIpAddress(servletRequest.getRemoteAddr());
         request.setUserAgent(servletRequest.getHeader("User-Agent"));
         
-        TransactionResponse transaction = transactionService.createTransaction(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
+        if (idempotencyKey == null) {
+            // Throttle floods before anything touches the database
+            transactionRateLimiter.checkCreate(servletRequest.getRemoteAddr());
+            TransactionResponse transaction = transactionService.createTransaction(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
+        }
+        
+        // Retries with the same key get the original response back; only a request that creates something is throttled
+        IdempotencyService.Result result = idempotencyService.execute(idempotencyKey, request, () -> {
+            transactionRateLimiter.checkCreate(servletRequest.getRemoteAddr());
+            return transactionService.createTransaction(request, idempotencyKey);
+        });
+        
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAY_HEADER, String.valueOf(result.replayed()))
+                .body(result.response());
     }
     
     @GetMapping("/{id}")
@@ -46,6 +78,13 @@ public class TransactionController {
         return ResponseEntity.ok(transaction);
     }
     
+    // Live status updates for the tracking page; the first event is the current state, read past the cache
+    @GetMapping(value = "/tracking/{internalId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTransactionStatus(@PathVariable String internalId) {
+        return transactionStatusStream.subscribe(internalId,
+                () -> transactionService.loadTransactionByInternalId(internalId));
+    }
+    
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<TransactionResponse>> getTransactionsByUserId(@PathVariable Long userId) {
         List<TransactionResponse> transactions = transactionService.getTransactionsByUserId(userId);
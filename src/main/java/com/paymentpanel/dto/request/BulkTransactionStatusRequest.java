@@ -0,0 +1,27 @@
+package com.paymentpanel.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class BulkTransactionStatusRequest {
+    
+    // Explicit transaction IDs; when empty the filter below selects PENDING transactions
+    @Size(max = 5000, message = "At most 5000 transactions can be processed at once")
+    private List<Long> ids;
+    
+    private Long bankAccountId;
+    
+    private LocalDateTime createdFrom;
+    
+    private LocalDateTime createdTo;
+    
+    @NotBlank(message = "Action by is required")
+    private String actionBy;
+    
+    private String note;
+}
@@ -0,0 +1,26 @@
+package com.paymentpanel.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+public class BulkTransactionStatusResponse {
+    
+    private int requestedCount;
+    private int successCount;
+    private int failureCount;
+    private List<Result> results;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long id;
+        private boolean success;
+        private String status;
+        private String message;
+    }
+}
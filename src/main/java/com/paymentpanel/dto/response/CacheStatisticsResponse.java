@@ -0,0 +1,15 @@
+package com.paymentpanel.dto.response;
+
+import lombok.Data;
+
+@Data
+public class CacheStatisticsResponse {
+    
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long loadFailureCount;
+}
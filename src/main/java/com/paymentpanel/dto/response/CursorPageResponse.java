@@ -0,0 +1,16 @@
+package com.paymentpanel.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CursorPageResponse<T> {
+    
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    // Cheap estimate, only filled in when requested
+    private Long approximateTotal;
+}
@@ -0,0 +1,15 @@
+package com.paymentpanel.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PendingQueueUpdateResponse {
+    
+    // Increases by one per batch, lets clients notice a gap and reconnect
+    private long sequence;
+    private List<TransactionResponse> added;
+    private List<Long> approvedIds;
+    private List<Long> rejectedIds;
+}
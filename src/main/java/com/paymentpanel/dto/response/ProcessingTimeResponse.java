@@ -0,0 +1,20 @@
+package com.paymentpanel.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class ProcessingTimeResponse {
+    
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Long approvalCount;
+    private Long approvalTimeP50; // In seconds
+    private Long approvalTimeP90;
+    private Long approvalTimeP99;
+    private Long rejectionCount;
+    private Long rejectionTimeP50;
+    private Long rejectionTimeP90;
+    private Long rejectionTimeP99;
+}
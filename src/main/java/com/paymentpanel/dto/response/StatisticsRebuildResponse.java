@@ -0,0 +1,23 @@
+package com.paymentpanel.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+public class StatisticsRebuildResponse {
+    
+    private String status; // RUNNING, COMPLETED or FAILED
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer totalDays;
+    private Integer completedDays;
+    private Integer failedDays;
+    private Long transactionCount;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long elapsedMillis;
+    private Double daysPerSecond;
+    private Double transactionsPerSecond;
+}
@@ -15,4 +15,12 @@ public class StatisticsResponse {
     private Integer pendingCount;
     private BigDecimal totalAmount;
     private Integer averageProcessingTime; // In seconds
+    
+    // Processing time percentiles in seconds, null when there were no approvals or rejections
+    private Long approvalTimeP50;
+    private Long approvalTimeP90;
+    private Long approvalTimeP99;
+    private Long rejectionTimeP50;
+    private Long rejectionTimeP90;
+    private Long rejectionTimeP99;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.paymentpanel.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionIngestRowResult {
+    
+    // 1-based data row, the CSV header is not counted
+    private long row;
+    private boolean success;
+    private Long id;
+    private String internalId;
+    private String message;
+}
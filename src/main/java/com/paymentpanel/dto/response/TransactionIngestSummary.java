@@ -0,0 +1,17 @@
+package com.paymentpanel.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionIngestSummary {
+    
+    private long totalRows;
+    private long createdCount;
+    private long failedCount;
+    // Set when the file could not be read to the end
+    private String error;
+}
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 public class AdminUser {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "admin_users_id_seq")
+    @SequenceGenerator(name = "admin_users_id_seq", sequenceName = "admin_users_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, length = 50, unique = true)
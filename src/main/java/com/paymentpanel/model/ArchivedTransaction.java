@@ -0,0 +1,82 @@
+package com.paymentpanel.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A finalized transaction moved out of the hot transactions table by
+ * TransactionArchiver. Rows keep their original id and internal ID and are
+ * never modified after they are archived.
+ */
+@Entity
+@Table(name = "transactions_archive", indexes = {
+        @Index(name = "idx_transactions_archive_user_id_created_at", columnList = "user_id, created_at desc"),
+        @Index(name = "idx_transactions_archive_created_at_id", columnList = "created_at, id")
+})
+@Data
+@NoArgsConstructor
+public class ArchivedTransaction {
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "internal_id", unique = true)
+    private String internalId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "bank_account_id", nullable = false)
+    private BankAccount bankAccount;
+    
+    @Column(nullable = false)
+    private BigDecimal amount;
+    
+    @Column(columnDefinition = "TEXT")
+    private String description;
+    
+    @Column(length = 20)
+    private String status;
+    
+    @Column(name = "ip_address", length = 50)
+    private String ipAddress;
+    
+    @Column(name = "user_agent", columnDefinition = "TEXT")
+    private String userAgent;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "approved_at")
+    private LocalDateTime approvedAt;
+    
+    @Column(name = "approved_by", length = 50)
+    private String approvedBy;
+    
+    @Column(name = "rejected_at")
+    private LocalDateTime rejectedAt;
+    
+    @Column(name = "rejected_by", length = 50)
+    private String rejectedBy;
+    
+    @Column(columnDefinition = "TEXT")
+    private String note;
+    
+    @Column(name = "payment_confirmed", nullable = false)
+    private Boolean paymentConfirmed = false;
+    
+    @Column(name = "payment_date")
+    private LocalDateTime paymentDate;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class BankAccount {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_accounts_id_seq")
+    @SequenceGenerator(name = "bank_accounts_id_seq", sequenceName = "bank_accounts_id_seq", allocationSize = 50)
     private Long id;
     
     // Removed PaymentMethod relationship
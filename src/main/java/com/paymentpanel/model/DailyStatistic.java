@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class DailyStatistic {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_statistics_id_seq")
+    @SequenceGenerator(name = "daily_statistics_id_seq", sequenceName = "daily_statistics_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true)
@@ -41,6 +42,13 @@ public class DailyStatistic {
     @Column(name = "average_processing_time")
     private Integer averageProcessingTime = 0;
     
+    // Encoded LatencySketch of approval and rejection processing times; bytea on PostgreSQL
+    @Column(name = "approval_time_sketch", length = 65536)
+    private byte[] approvalTimeSketch;
+    
+    @Column(name = "rejection_time_sketch", length = 65536)
+    private byte[] rejectionTimeSketch;
+    
     @Column(name = "team_code", length = 10)
     private String teamCode;
     
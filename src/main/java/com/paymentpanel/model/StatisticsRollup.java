@@ -0,0 +1,67 @@
+package com.paymentpanel.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Weekly or monthly totals of daily_statistics, updated with every statistics flush
+@Entity
+@Table(name = "statistics_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_statistics_rollups_granularity_period_start", columnNames = {"granularity", "period_start"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatisticsRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "statistics_rollups_id_seq")
+    @SequenceGenerator(name = "statistics_rollups_id_seq", sequenceName = "statistics_rollups_id_seq", allocationSize = 50)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private StatisticsGranularity granularity;
+    
+    // First day of the week (Monday) or month
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+    
+    @Column(name = "transaction_count")
+    private Integer transactionCount = 0;
+    
+    @Column(name = "approved_count")
+    private Integer approvedCount = 0;
+    
+    @Column(name = "rejected_count")
+    private Integer rejectedCount = 0;
+    
+    @Column(name = "pending_count")
+    private Integer pendingCount = 0;
+    
+    @Column(name = "total_amount")
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+    
+    @Column(name = "average_processing_time")
+    private Integer averageProcessingTime = 0;
+    
+    // Encoded LatencySketch of approval and rejection processing times; bytea on PostgreSQL
+    @Column(name = "approval_time_sketch", length = 65536)
+    private byte[] approvalTimeSketch;
+    
+    @Column(name = "rejection_time_sketch", length = 65536)
+    private byte[] rejectionTimeSketch;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -9,27 +9,41 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Keyset pagination on (created_at, id), overall and per status
+        @Index(name = "idx_transactions_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_transactions_status_created_at_id", columnList = "status, created_at, id"),
+        @Index(name = "idx_transactions_user_id_created_at", columnList = "user_id, created_at desc"),
+        @Index(name = "idx_transactions_bank_account_id_created_at", columnList = "bank_account_id, created_at")
+        // The partial index on PENDING rows only exists in the migrations (db/migration)
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transaction {
     
+    // PostgreSQL's default name for the constraint; partitions and the migrations may add a suffix
+    public static final String BANK_ACCOUNT_FOREIGN_KEY = "transactions_bank_account_id_fkey";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts; one round trip reserves 50 ids
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq", allocationSize = 50)
     private Long id;
     
+    // On PostgreSQL, where transactions is partitioned, uniqueness is enforced through the transaction_internal_ids table
     @Column(name = "internal_id", unique = true)
     private String internalId;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
     
     // Removed PaymentMethod reference
     
-    @ManyToOne
-    @JoinColumn(name = "bank_account_id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "bank_account_id", nullable = false,
+            foreignKey = @ForeignKey(name = BANK_ACCOUNT_FOREIGN_KEY))
     private BankAccount bankAccount;
     
     @Column(nullable = false)
@@ -47,7 +61,8 @@ public class Transaction {
     @Column(name = "user_agent", columnDefinition = "TEXT")
     private String userAgent;
     
-    @Column(name = "created_at")
+    // Partition key: never changed after insert, so a row never moves between partitions
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     @Column(name = "updated_at")
@@ -0,0 +1,53 @@
+package com.paymentpanel.repository;
+
+import com.paymentpanel.model.ArchivedTransaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+    
+    String VIEW_SELECT = TransactionRepository.VIEW_COLUMNS +
+            "FROM ArchivedTransaction t LEFT JOIN t.user u JOIN t.bankAccount b ";
+    
+    // Column lists of the copy below; transactions and transactions_archive share their column names
+    String COPY_COLUMNS = "id, internal_id, user_id, bank_account_id, amount, description, status, ip_address, " +
+            "user_agent, created_at, updated_at, approved_at, approved_by, rejected_at, rejected_by, note, " +
+            "payment_confirmed, payment_date";
+    
+    // Copy transactions into the archive in one statement; the caller deletes them in the same transaction
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO transactions_archive (" + COPY_COLUMNS + ", archived_at) " +
+            "SELECT " + COPY_COLUMNS + ", :archivedAt FROM transactions WHERE id IN :ids")
+    int copyFromTransactions(Collection<Long> ids, LocalDateTime archivedAt);
+    
+    @Query(VIEW_SELECT + "WHERE t.id = :id")
+    Optional<TransactionView> findViewById(Long id);
+    
+    @Query(VIEW_SELECT + "WHERE t.internalId = :internalId")
+    Optional<TransactionView> findViewByInternalId(String internalId);
+    
+    @Query(VIEW_SELECT + "WHERE u.id = :userId ORDER BY t.createdAt DESC")
+    List<TransactionView> findViewsByUserIdOrderByCreatedAtDesc(Long userId);
+    
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + TransactionRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(VIEW_SELECT + "WHERE t.createdAt >= :from AND t.createdAt < :to " +
+            "AND (:status IS NULL OR t.status = :status) " +
+            "AND (:bankAccountId IS NULL OR b.id = :bankAccountId) " +
+            "ORDER BY t.createdAt ASC, t.id ASC")
+    Stream<TransactionView> streamViewsForExport(LocalDateTime from, LocalDateTime to, String status, Long bankAccountId);
+}
@@ -1,8 +1,14 @@
 package com.paymentpanel.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -14,4 +20,56 @@ public interface DailyStatisticRepository extends JpaRepository<DailyStatistic,
     Optional<DailyStatistic> findByDate(LocalDate date);
     
     List<DailyStatistic> findByDateBetweenOrderByDateDesc(LocalDate startDate, LocalDate endDate);
+    
+    // Locks the day against concurrent flushes while the statistics rebuild replaces it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<DailyStatistic> findForUpdateByDate(LocalDate date);
+    
+    // Totals over all days, used as a cheap approximate row count
+    @Query("SELECT SUM(d.transactionCount) AS transactionCount, SUM(d.approvedCount) AS approvedCount, " +
+            "SUM(d.rejectedCount) AS rejectedCount, SUM(d.pendingCount) AS pendingCount FROM DailyStatistic d")
+    StatisticTotals sumTotals();
+    
+    interface StatisticTotals {
+        Long getTransactionCount();
+        Long getApprovedCount();
+        Long getRejectedCount();
+        Long getPendingCount();
+    }
+    
+    // Stored processing time sketches of a day; read after applyDelta has locked the row
+    @Query("SELECT d.approvalTimeSketch AS approvalTimeSketch, d.rejectionTimeSketch AS rejectionTimeSketch " +
+            "FROM DailyStatistic d WHERE d.date = :date")
+    Optional<StatisticSketches> findSketchesByDate(LocalDate date);
+    
+    @Query("SELECT d.approvalTimeSketch AS approvalTimeSketch, d.rejectionTimeSketch AS rejectionTimeSketch " +
+            "FROM DailyStatistic d WHERE d.date BETWEEN :startDate AND :endDate")
+    List<StatisticSketches> findSketchesByDateBetween(LocalDate startDate, LocalDate endDate);
+    
+    interface StatisticSketches {
+        byte[] getApprovalTimeSketch();
+        byte[] getRejectionTimeSketch();
+    }
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE DailyStatistic d SET d.approvalTimeSketch = :approvalTimeSketch, " +
+            "d.rejectionTimeSketch = :rejectionTimeSketch WHERE d.date = :date")
+    int updateSketches(LocalDate date, byte[] approvalTimeSketch, byte[] rejectionTimeSketch);
+    
+    // Apply an accumulated delta in a single statement so concurrent flushes never lose updates
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE daily_statistics SET " +
+            "transaction_count = transaction_count + :transactionCount, " +
+            "approved_count = approved_count + :approvedCount, " +
+            "rejected_count = rejected_count + :rejectedCount, " +
+            "pending_count = CASE WHEN pending_count + :pendingCount < 0 THEN 0 ELSE pending_count + :pendingCount END, " +
+            "total_amount = total_amount + :totalAmount, " +
+            "average_processing_time = CASE WHEN approved_count + :approvedCount > 0 " +
+            "THEN (CAST(average_processing_time AS BIGINT) * approved_count + :processingTimeSum) / (approved_count + :approvedCount) " +
+            "ELSE average_processing_time END " +
+            "WHERE date = :date", nativeQuery = true)
+    int applyDelta(LocalDate date, int transactionCount, int approvedCount, int rejectedCount,
+                   int pendingCount, BigDecimal totalAmount, long processingTimeSum);
 }
@@ -0,0 +1,57 @@
+package com.paymentpanel.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import com.paymentpanel.model.StatisticsGranularity;
+import com.paymentpanel.model.StatisticsRollup;
+import com.paymentpanel.repository.DailyStatisticRepository.StatisticSketches;
+
+@Repository
+public interface StatisticsRollupRepository extends JpaRepository<StatisticsRollup, Long> {
+    
+    boolean existsByGranularityAndPeriodStart(StatisticsGranularity granularity, LocalDate periodStart);
+    
+    List<StatisticsRollup> findByGranularityAndPeriodStartBetweenOrderByPeriodStartDesc(
+            StatisticsGranularity granularity, LocalDate firstPeriodStart, LocalDate lastPeriodStart);
+    
+    // Locks the period against concurrent flushes while the statistics rebuild recomputes it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<StatisticsRollup> findForUpdateByGranularityAndPeriodStart(StatisticsGranularity granularity, LocalDate periodStart);
+    
+    @Query("SELECT r.approvalTimeSketch AS approvalTimeSketch, r.rejectionTimeSketch AS rejectionTimeSketch " +
+            "FROM StatisticsRollup r WHERE r.granularity = :granularity AND r.periodStart = :periodStart")
+    Optional<StatisticSketches> findSketches(StatisticsGranularity granularity, LocalDate periodStart);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE StatisticsRollup r SET r.approvalTimeSketch = :approvalTimeSketch, " +
+            "r.rejectionTimeSketch = :rejectionTimeSketch WHERE r.granularity = :granularity AND r.periodStart = :periodStart")
+    int updateSketches(StatisticsGranularity granularity, LocalDate periodStart, byte[] approvalTimeSketch,
+                       byte[] rejectionTimeSketch);
+    
+    // Same arithmetic as DailyStatisticRepository.applyDelta, on the week or month row
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE statistics_rollups SET " +
+            "transaction_count = transaction_count + :transactionCount, " +
+            "approved_count = approved_count + :approvedCount, " +
+            "rejected_count = rejected_count + :rejectedCount, " +
+            "pending_count = CASE WHEN pending_count + :pendingCount < 0 THEN 0 ELSE pending_count + :pendingCount END, " +
+            "total_amount = total_amount + :totalAmount, " +
+            "average_processing_time = CASE WHEN approved_count + :approvedCount > 0 " +
+            "THEN (CAST(average_processing_time AS BIGINT) * approved_count + :processingTimeSum) / (approved_count + :approvedCount) " +
+            "ELSE average_processing_time END " +
+            "WHERE granularity = :granularity AND period_start = :periodStart", nativeQuery = true)
+    int applyDelta(String granularity, LocalDate periodStart, int transactionCount, int approvedCount, int rejectedCount,
+                   int pendingCount, BigDecimal totalAmount, long processingTimeSum);
+}
@@ -3,18 +3,38 @@ package com.paymentpanel.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.LockOptions;
+import org.hibernate.jpa.AvailableHints;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import com.paymentpanel.model.Transaction;
 
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     
+    int EXPORT_FETCH_SIZE = 500;
+    
+    // Constructor projection shared by the read-only queries below and by ArchivedTransactionRepository
+    String VIEW_COLUMNS = "SELECT new com.paymentpanel.repository.TransactionView(" +
+            "t.id, t.internalId, u.id, u.username, b.id, b.bankName, b.accountOwner, b.iban, " +
+            "t.amount, t.description, t.status, t.createdAt, t.approvedAt, t.approvedBy, " +
+            "t.rejectedAt, t.rejectedBy, t.note, t.paymentConfirmed, t.paymentDate) ";
+    
+    String VIEW_SELECT = VIEW_COLUMNS + "FROM Transaction t LEFT JOIN t.user u JOIN t.bankAccount b ";
+    
     Optional<Transaction> findByInternalId(String internalId);
     
     Page<Transaction> findByStatus(String status, Pageable pageable);
@@ -26,4 +46,117 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.status = :status AND t.createdAt BETWEEN :startDate AND :endDate")
     Long countByStatusAndDateRange(String status, LocalDateTime startDate, LocalDateTime endDate);
+    
+    // Served from the (status, created_at, id) index
+    @Query("SELECT MIN(t.createdAt) FROM Transaction t WHERE t.status = :status")
+    LocalDateTime findOldestCreatedAtByStatus(String status);
+    
+    // Load and lock one transaction for a status change, so it cannot race a bulk change of the same row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(Long id);
+    
+    // Load and lock a batch of transactions for a bulk status change
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id IN :ids")
+    List<Transaction> findAllByIdInForUpdate(Collection<Long> ids);
+    
+    // Finalized transactions created before the cutoff, oldest first. Rows locked by a concurrent
+    // update are skipped and picked up by a later run
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_SPEC_LOCK_TIMEOUT, value = "" + LockOptions.SKIP_LOCKED))
+    @Query("SELECT t.id FROM Transaction t WHERE t.status IN ('APPROVED', 'REJECTED') AND t.createdAt < :cutoff " +
+            "ORDER BY t.createdAt ASC")
+    List<Long> findArchivableIdsForUpdate(LocalDateTime cutoff, Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids")
+    int deleteAllByIdIn(Collection<Long> ids);
+    
+    @Query("SELECT t.id FROM Transaction t WHERE t.status = 'PENDING' " +
+            "AND (:bankAccountId IS NULL OR t.bankAccount.id = :bankAccountId) " +
+            "AND (:createdFrom IS NULL OR t.createdAt >= :createdFrom) " +
+            "AND (:createdTo IS NULL OR t.createdAt <= :createdTo) " +
+            "ORDER BY t.createdAt ASC")
+    List<Long> findPendingIds(Long bankAccountId, LocalDateTime createdFrom, LocalDateTime createdTo, Pageable pageable);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Transaction t SET t.status = 'APPROVED', t.approvedAt = :actionAt, t.approvedBy = :actionBy, " +
+            "t.note = COALESCE(:note, t.note), t.updatedAt = :actionAt WHERE t.id IN :ids")
+    int approveAll(Collection<Long> ids, LocalDateTime actionAt, String actionBy, String note);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Transaction t SET t.status = 'REJECTED', t.rejectedAt = :actionAt, t.rejectedBy = :actionBy, " +
+            "t.note = COALESCE(:note, t.note), t.updatedAt = :actionAt WHERE t.id IN :ids")
+    int rejectAll(Collection<Long> ids, LocalDateTime actionAt, String actionBy, String note);
+    
+    // Keyset (seek) listing on (createdAt, id), served by the matching composite indexes
+    @Query(VIEW_SELECT + "WHERE (t.createdAt, t.id) < (:createdAt, :id) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionView> findPageBefore(LocalDateTime createdAt, Long id, Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE (t.createdAt, t.id) > (:createdAt, :id) " +
+            "ORDER BY t.createdAt ASC, t.id ASC")
+    List<TransactionView> findPageAfter(LocalDateTime createdAt, Long id, Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE t.status = :status AND (t.createdAt, t.id) < (:createdAt, :id) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionView> findPageByStatusBefore(String status, LocalDateTime createdAt, Long id, Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE t.status = :status AND (t.createdAt, t.id) > (:createdAt, :id) " +
+            "ORDER BY t.createdAt ASC, t.id ASC")
+    List<TransactionView> findPageByStatusAfter(String status, LocalDateTime createdAt, Long id, Pageable pageable);
+    
+    // Read-only queries returning the flat view in one statement
+    @Query(VIEW_SELECT + "WHERE t.id = :id")
+    Optional<TransactionView> findViewById(Long id);
+    
+    @Query(VIEW_SELECT + "WHERE t.internalId = :internalId")
+    Optional<TransactionView> findViewByInternalId(String internalId);
+    
+    @Query(VIEW_SELECT + "WHERE t.internalId IN :internalIds")
+    List<TransactionView> findViewsByInternalIdIn(Collection<String> internalIds);
+    
+    @Query(value = VIEW_SELECT, countQuery = "SELECT COUNT(t) FROM Transaction t")
+    Page<TransactionView> findAllViews(Pageable pageable);
+    
+    @Query(value = VIEW_SELECT + "WHERE t.status = :status",
+            countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.status = :status")
+    Page<TransactionView> findViewsByStatus(String status, Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE u.id = :userId ORDER BY t.createdAt DESC")
+    List<TransactionView> findViewsByUserIdOrderByCreatedAtDesc(Long userId);
+    
+    // Columns the statistics rebuild aggregates; processing time is in whole seconds and null while pending
+    String STATISTICS_SOURCE_SELECT = "SELECT status, amount, CAST(FLOOR(EXTRACT(EPOCH FROM CASE status " +
+            "WHEN 'APPROVED' THEN approved_at WHEN 'REJECTED' THEN rejected_at END) - EXTRACT(EPOCH FROM created_at)) " +
+            "AS BIGINT) AS processing_time_seconds ";
+    
+    String STATISTICS_SOURCE_RANGE = "WHERE created_at >= :from AND created_at < :to ";
+    
+    // One aggregate over the hot table and the archive, grouped finely enough to rebuild the processing time sketches
+    @Query(nativeQuery = true, value = "SELECT s.status AS status, s.processing_time_seconds AS processingTimeSeconds, " +
+            "COUNT(*) AS transactionCount, SUM(s.amount) AS totalAmount FROM (" +
+            STATISTICS_SOURCE_SELECT + "FROM transactions " + STATISTICS_SOURCE_RANGE + "UNION ALL " +
+            STATISTICS_SOURCE_SELECT + "FROM transactions_archive " + STATISTICS_SOURCE_RANGE +
+            ") s GROUP BY s.status, s.processing_time_seconds")
+    List<StatisticsGroup> aggregateStatistics(LocalDateTime from, LocalDateTime to);
+    
+    interface StatisticsGroup {
+        String getStatus();
+        Long getProcessingTimeSeconds();
+        Long getTransactionCount();
+        BigDecimal getTotalAmount();
+    }
+    
+    // Forward-only cursor for exports; the fetch size keeps one batch in memory at a time
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(VIEW_SELECT + "WHERE t.createdAt >= :from AND t.createdAt < :to " +
+            "AND (:status IS NULL OR t.status = :status) " +
+            "AND (:bankAccountId IS NULL OR b.id = :bankAccountId) " +
+            "ORDER BY t.createdAt ASC, t.id ASC")
+    Stream<TransactionView> streamViewsForExport(LocalDateTime from, LocalDateTime to, String status, Long bankAccountId);
 }
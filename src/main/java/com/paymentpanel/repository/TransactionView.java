@@ -0,0 +1,30 @@
+package com.paymentpanel.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat read model of a transaction with the user and bank account columns
+ * it is displayed with, filled by a single joined query.
+ */
+public record TransactionView(
+        Long id,
+        String internalId,
+        Long userId,
+        String userName,
+        Long bankAccountId,
+        String bankName,
+        String accountOwner,
+        String iban,
+        BigDecimal amount,
+        String description,
+        String status,
+        LocalDateTime createdAt,
+        LocalDateTime approvedAt,
+        String approvedBy,
+        LocalDateTime rejectedAt,
+        String rejectedBy,
+        String note,
+        Boolean paymentConfirmed,
+        LocalDateTime paymentDate) {
+}
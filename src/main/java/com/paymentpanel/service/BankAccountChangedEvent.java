@@ -0,0 +1,5 @@
+package com.paymentpanel.service;
+
+// Published whenever a bank account is created, updated or deleted
+public record BankAccountChangedEvent(Long bankAccountId) {
+}
@@ -6,9 +6,14 @@ import com.paymentpanel.repository.BankAccountRepository;
 import com.paymentpanel.dto.request.BankAccountRequest;
 import com.paymentpanel.dto.response.BankAccountResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,6 +22,13 @@ public class BankAccountService {
     @Autowired
     private BankAccountRepository bankAccountRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    private final AtomicReference<BankAccountSnapshot> snapshot = new AtomicReference<>();
+    
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    
     // Get all bank accounts
     public List<BankAccountResponse> getAllBankAccounts() {
         List<BankAccount> bankAccounts = bankAccountRepository.findAll();
@@ -26,13 +38,45 @@ public class BankAccountService {
                 .collect(Collectors.toList());
     }
     
-    // Get all active bank accounts for public API
+    // Get all active bank accounts for public API, served from the in-memory snapshot
     public List<BankAccountResponse> getAllActiveBankAccounts() {
-        List<BankAccount> bankAccounts = bankAccountRepository.findByStatusOrderByBankNameAsc("ACTIVE");
+        return currentSnapshot().activeAccounts().stream()
+                .map(BankAccountService::copyOf)
+                .collect(Collectors.toList());
+    }
+    
+    // Look up a bank account in the in-memory snapshot, regardless of status; a miss is checked against the database
+    public BankAccountResponse getCachedBankAccount(Long id) {
+        BankAccountResponse bankAccount = currentSnapshot().accountsById().get(id);
+        if (bankAccount != null) {
+            return copyOf(bankAccount);
+        }
         
-        return bankAccounts.stream()
+        // Created on another node since the last refresh
+        BankAccount created = bankAccountRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Bank account not found with id: " + id));
+        refreshSnapshot();
+        
+        return mapToResponse(created);
+    }
+    
+    // Rebuild the snapshot after a committed change; the schedule picks up changes made by other nodes
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBankAccountChanged(BankAccountChangedEvent event) {
+        refreshSnapshot();
+    }
+    
+    @Scheduled(fixedDelayString = "${bank-accounts.snapshot-refresh-ms:60000}")
+    public void refreshSnapshot() {
+        // Versions are taken before reading, so a slow refresh can never replace a newer snapshot
+        long version = snapshotVersion.incrementAndGet();
+        List<BankAccountResponse> bankAccounts = bankAccountRepository.findAll().stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+        
+        BankAccountSnapshot loaded = BankAccountSnapshot.of(version, bankAccounts);
+        snapshot.accumulateAndGet(loaded, (current, candidate) ->
+                current == null || candidate.version() > current.version() ? candidate : current);
     }
     
     // Get bank account by id
@@ -50,6 +94,7 @@ public class BankAccountService {
         mapRequestToEntity(request, bankAccount);
         
         BankAccount savedAccount = bankAccountRepository.save(bankAccount);
+        eventPublisher.publishEvent(new BankAccountChangedEvent(savedAccount.getId()));
         
         return mapToResponse(savedAccount);
     }
@@ -63,6 +108,7 @@ public class BankAccountService {
         mapRequestToEntity(request, bankAccount);
         
         BankAccount updatedAccount = bankAccountRepository.save(bankAccount);
+        eventPublisher.publishEvent(new BankAccountChangedEvent(updatedAccount.getId()));
         
         return mapToResponse(updatedAccount);
     }
@@ -76,6 +122,7 @@ public class BankAccountService {
         bankAccount.setStatus(status);
         
         BankAccount updatedAccount = bankAccountRepository.save(bankAccount);
+        eventPublisher.publishEvent(new BankAccountChangedEvent(updatedAccount.getId()));
         
         return mapToResponse(updatedAccount);
     }
@@ -88,9 +135,20 @@ public class BankAccountService {
         }
         
         bankAccountRepository.deleteById(id);
+        eventPublisher.publishEvent(new BankAccountChangedEvent(id));
     }
     
     // Helper methods
+    private BankAccountSnapshot currentSnapshot() {
+        BankAccountSnapshot current = snapshot.get();
+        if (current == null) {
+            refreshSnapshot();
+            current = snapshot.get();
+        }
+        
+        return current;
+    }
+    
     private void mapRequestToEntity(BankAccountRequest request, BankAccount bankAccount) {
         bankAccount.setBankName(request.getBankName());
         bankAccount.setAccountOwner(request.getAccountOwner());
@@ -124,4 +182,25 @@ public class BankAccountService {
         
         return response;
     }
+    
+    // Snapshot entries are shared between callers, so each caller gets its own copy
+    private static BankAccountResponse copyOf(BankAccountResponse bankAccount) {
+        BankAccountResponse copy = new BankAccountResponse();
+        copy.setId(bankAccount.getId());
+        copy.setBankName(bankAccount.getBankName());
+        copy.setAccountOwner(bankAccount.getAccountOwner());
+        copy.setIban(bankAccount.getIban());
+        copy.setBranchCode(bankAccount.getBranchCode());
+        copy.setAccountNumber(bankAccount.getAccountNumber());
+        copy.setDescription(bankAccount.getDescription());
+        copy.setLogoUrl(bankAccount.getLogoUrl());
+        copy.setMinLimit(bankAccount.getMinLimit());
+        copy.setMaxLimit(bankAccount.getMaxLimit());
+        copy.setStatus(bankAccount.getStatus());
+        copy.setTeamCode(bankAccount.getTeamCode());
+        copy.setCreatedAt(bankAccount.getCreatedAt());
+        copy.setUpdatedAt(bankAccount.getUpdatedAt());
+        
+        return copy;
+    }
 }
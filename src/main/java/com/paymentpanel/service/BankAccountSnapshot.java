@@ -0,0 +1,34 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.response.BankAccountResponse;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable, versioned view of all bank accounts. A new instance replaces
+ * the old one whenever accounts change. The contained responses are shared
+ * and never leave BankAccountService directly; callers get copies.
+ */
+public record BankAccountSnapshot(
+        long version,
+        Map<Long, BankAccountResponse> accountsById,
+        List<BankAccountResponse> activeAccounts) {
+    
+    static BankAccountSnapshot of(long version, List<BankAccountResponse> bankAccounts) {
+        Map<Long, BankAccountResponse> byId = bankAccounts.stream()
+                .collect(Collectors.toUnmodifiableMap(BankAccountResponse::getId, Function.identity()));
+        
+        // Same filter and order as findByStatusOrderByBankNameAsc("ACTIVE"); PostgreSQL sorts nulls last
+        List<BankAccountResponse> active = bankAccounts.stream()
+                .filter(account -> "ACTIVE".equals(account.getStatus()))
+                .sorted(Comparator.comparing(BankAccountResponse::getBankName,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+        
+        return new BankAccountSnapshot(version, byId, active);
+    }
+}
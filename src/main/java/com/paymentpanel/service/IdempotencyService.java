@@ -0,0 +1,222 @@
+package com.paymentpanel.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paymentpanel.dto.request.TransactionRequest;
+import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.exception.ValidationException;
+import com.paymentpanel.model.IdempotencyRecord;
+import com.paymentpanel.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for transaction creation.
+ *
+ * Lookups go to a bounded in-memory store first, then the idempotency_keys
+ * table. Concurrent requests with the same key on one node share a single
+ * execution. Across nodes, the table's primary key lets only one insert
+ * commit.
+ */
+@Service
+public class IdempotencyService {
+    
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    
+    private static final int MAX_KEY_LENGTH = 100;
+    
+    // How long a duplicate waits for the request that is already running
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+    
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final Duration ttl;
+    
+    private final Cache<String, StoredResponse> hotStore;
+    
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    
+    public IdempotencyService(@Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.hot-store-max-size:10000}") long hotStoreMaxSize) {
+        this.ttl = Duration.ofHours(ttlHours);
+        this.hotStore = Caffeine.newBuilder()
+                .maximumSize(hotStoreMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+    
+    // Run the action once per key; replays return the stored response without running it again
+    public Result execute(String idempotencyKey, TransactionRequest request, Supplier<TransactionResponse> action) {
+        validateKey(idempotencyKey);
+        String fingerprint = fingerprint(request);
+        
+        StoredResponse cached = hotStore.getIfPresent(idempotencyKey);
+        if (cached != null) {
+            return replay(cached, fingerprint);
+        }
+        
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(idempotencyKey, execution);
+        if (running != null) {
+            // Same key already being processed on this node, share its outcome
+            return replay(awaitInFlight(running), fingerprint);
+        }
+        
+        try {
+            Optional<StoredResponse> persisted = findPersisted(idempotencyKey);
+            if (persisted.isPresent()) {
+                hotStore.put(idempotencyKey, persisted.get());
+                execution.complete(persisted.get());
+                return replay(persisted.get(), fingerprint);
+            }
+            
+            TransactionResponse response;
+            try {
+                response = action.get();
+            } catch (DataIntegrityViolationException e) {
+                // Another node committed the same key first
+                StoredResponse winner = findPersisted(idempotencyKey).orElseThrow(() -> e);
+                hotStore.put(idempotencyKey, winner);
+                execution.complete(winner);
+                return replay(winner, fingerprint);
+            }
+            
+            StoredResponse stored = new StoredResponse(fingerprint, response);
+            hotStore.put(idempotencyKey, stored);
+            execution.complete(stored);
+            return new Result(response, false);
+        } catch (RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, execution);
+        }
+    }
+    
+    // Persist the response for a key; called inside the transaction that creates the transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saveResponse(String idempotencyKey, TransactionRequest request, TransactionResponse response) {
+        LocalDateTime now = LocalDateTime.now();
+        
+        // An expired record for the same key may not have been purged yet
+        idempotencyRecordRepository.deleteExpiredKey(idempotencyKey, now);
+        
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(idempotencyKey);
+        record.setRequestFingerprint(fingerprint(request));
+        record.setTransactionId(response.getId());
+        record.setResponseBody(toJson(response));
+        record.setExpiresAt(now.plus(ttl));
+        
+        // Flush now so a duplicate key fails here, before the transaction row is committed
+        idempotencyRecordRepository.saveAndFlush(record);
+    }
+    
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        int purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+    
+    // Helper methods
+    private Optional<StoredResponse> findPersisted(String idempotencyKey) {
+        return idempotencyRecordRepository.findById(idempotencyKey)
+                .filter(record -> record.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(record -> new StoredResponse(record.getRequestFingerprint(), fromJson(record.getResponseBody())));
+    }
+    
+    private Result replay(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new ValidationException("Idempotency-Key has already been used for a different request");
+        }
+        
+        return new Result(stored.response(), true);
+    }
+    
+    private StoredResponse awaitInFlight(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ValidationException("A request with the same Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private void validateKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+    
+    // Only the fields that define the deposit; IP and user agent may differ between retries
+    private static String fingerprint(TransactionRequest request) {
+        String canonical = request.getBankAccountId() + "|" + request.getUserId() + "|"
+                + (request.getAmount() != null ? request.getAmount().stripTrailingZeros().toPlainString() : "") + "|"
+                + (request.getDescription() != null ? request.getDescription() : "");
+        
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private String toJson(TransactionResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotent response", e);
+        }
+    }
+    
+    private TransactionResponse fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, TransactionResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+    
+    private record StoredResponse(String fingerprint, TransactionResponse response) {
+    }
+    
+    public record Result(TransactionResponse response, boolean replayed) {
+    }
+}
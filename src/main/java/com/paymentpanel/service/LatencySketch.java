@@ -0,0 +1,109 @@
+package com.paymentpanel.service;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * Immutable, mergeable sketch of processing times in seconds.
+ *
+ * Backed by an auto-resizing HdrHistogram with two significant digits, so
+ * every percentile is within 1% of the exact value and a day of samples
+ * encodes to a few hundred bytes. Two sketches add up to exactly the sketch
+ * of all their samples, which is what lets weeks, months and arbitrary date
+ * ranges be answered from the stored sketches alone.
+ */
+public final class LatencySketch {
+    
+    private static final Logger log = LoggerFactory.getLogger(LatencySketch.class);
+    
+    static final int SIGNIFICANT_DIGITS = 2;
+    
+    public static final LatencySketch EMPTY = new LatencySketch(newHistogram());
+    
+    private final Histogram histogram;
+    
+    private LatencySketch(Histogram histogram) {
+        this.histogram = histogram;
+    }
+    
+    // Sketch of the given processing times; negative values (clock skew) count as zero
+    public static LatencySketch of(long... seconds) {
+        Histogram histogram = newHistogram();
+        for (long value : seconds) {
+            histogram.recordValue(Math.max(0, value));
+        }
+        return new LatencySketch(histogram);
+    }
+    
+    // Decode a stored sketch; a missing or unreadable column is an empty sketch
+    public static LatencySketch decode(byte[] encoded) {
+        if (encoded == null || encoded.length == 0) {
+            return EMPTY;
+        }
+        
+        try {
+            Histogram histogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+            histogram.setAutoResize(true);
+            return new LatencySketch(histogram);
+        } catch (DataFormatException | RuntimeException e) {
+            log.warn("Ignoring unreadable processing time sketch of {} bytes", encoded.length, e);
+            return EMPTY;
+        }
+    }
+    
+    // Compressed binary form for the sketch columns, null when there are no samples
+    public byte[] encode() {
+        if (isEmpty()) {
+            return null;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+    
+    public LatencySketch plus(LatencySketch other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        
+        Histogram merged = histogram.copy();
+        merged.add(other.histogram);
+        return new LatencySketch(merged);
+    }
+    
+    public long count() {
+        return histogram.getTotalCount();
+    }
+    
+    public boolean isEmpty() {
+        return count() == 0;
+    }
+    
+    // Processing time at the given percentile (0-100), null when there are no samples
+    public Long percentile(double percentile) {
+        return isEmpty() ? null : histogram.getValueAtPercentile(percentile);
+    }
+    
+    // Wrap a histogram that nothing else holds on to anymore
+    static LatencySketch wrap(Histogram histogram) {
+        return histogram.getTotalCount() == 0 ? EMPTY : new LatencySketch(histogram);
+    }
+    
+    // The samples, for re-recording into a live recorder
+    Histogram histogram() {
+        return histogram;
+    }
+    
+    static Histogram newHistogram() {
+        return new Histogram(SIGNIFICANT_DIGITS);
+    }
+}
@@ -0,0 +1,229 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.response.CursorPageResponse;
+import com.paymentpanel.dto.response.PendingQueueUpdateResponse;
+import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+/**
+ * Push feed of the pending queue for admin screens.
+ *
+ * A new subscriber gets the first page of pending transactions, then only
+ * the changes committed since. Changes are queued as they commit and sent
+ * as one coalesced batch per interval, so a burst of deposits becomes a
+ * single repaint instead of one per transaction.
+ *
+ * The feed is node-local: it only carries changes committed by this
+ * instance. With several instances behind a load balancer, deposits and
+ * approvals handled by other nodes never appear in it; an admin sees them
+ * only after reconnecting, when the snapshot is reloaded from the
+ * database. Cross-node fan-out would need a shared channel (e.g.
+ * PostgreSQL LISTEN/NOTIFY or a message broker).
+ */
+@Component
+public class PendingQueueFeed {
+    
+    private static final Logger log = LoggerFactory.getLogger(PendingQueueFeed.class);
+    
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    
+    private final ConcurrentLinkedQueue<Change> changes = new ConcurrentLinkedQueue<>();
+    
+    // One thread keeps batches in order for every subscriber
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pending-queue-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final int maxSubscribers;
+    
+    private final long timeoutMillis;
+    
+    private final int snapshotSize;
+    
+    private long sequence;
+    
+    public PendingQueueFeed(@Value("${pending-feed.max-subscribers:200}") int maxSubscribers,
+                            @Value("${pending-feed.timeout-ms:1800000}") long timeoutMillis,
+                            @Value("${pending-feed.snapshot-size:500}") int snapshotSize) {
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.snapshotSize = snapshotSize;
+    }
+    
+    // Register first and load the snapshot second, so nothing committed in between is lost
+    public SseEmitter subscribe(IntFunction<CursorPageResponse<TransactionResponse>> snapshotLoader) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Too many open pending queue feeds");
+        }
+        
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis));
+        subscribers.add(subscriber);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+        
+        CursorPageResponse<TransactionResponse> snapshot;
+        try {
+            snapshot = snapshotLoader.apply(snapshotSize);
+        } catch (RuntimeException e) {
+            subscribers.remove(subscriber);
+            throw e;
+        }
+        
+        synchronized (subscriber) {
+            if (send(subscriber, "snapshot", snapshot)) {
+                // Batches that were flushed while the snapshot was loading follow it in order
+                for (PendingQueueUpdateResponse batch : subscriber.backlog) {
+                    send(subscriber, "changes", batch);
+                }
+            }
+            subscriber.backlog = null;
+        }
+        
+        return subscriber.emitter;
+    }
+    
+    public void transactionAdded(TransactionResponse transaction) {
+        enqueueAfterCommit(List.of(new Change(transaction.getId(), "PENDING", transaction)));
+    }
+    
+    public void transactionsFinalized(Collection<Long> ids, String status) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        
+        List<Change> finalized = new ArrayList<>(ids.size());
+        ids.forEach(id -> finalized.add(new Change(id, status, null)));
+        enqueueAfterCommit(finalized);
+    }
+    
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+    
+    @Scheduled(fixedDelayString = "${pending-feed.batch-interval-ms:500}")
+    public void flushChanges() {
+        if (changes.isEmpty()) {
+            return;
+        }
+        
+        PendingQueueUpdateResponse batch = coalesce();
+        dispatcher.execute(() -> subscribers.forEach(subscriber -> deliver(subscriber, batch)));
+    }
+    
+    @Scheduled(fixedDelayString = "${pending-feed.heartbeat-ms:30000}")
+    public void sendHeartbeats() {
+        dispatcher.execute(() -> subscribers.forEach(subscriber -> {
+            synchronized (subscriber) {
+                try {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(subscriber);
+                }
+            }
+        }));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+    
+    // Helper methods
+    private void enqueueAfterCommit(List<Change> committed) {
+        AfterCommit.run(() -> {
+            // Nobody is watching, don't let the queue grow
+            if (!subscribers.isEmpty()) {
+                changes.addAll(committed);
+            }
+        });
+    }
+    
+    private PendingQueueUpdateResponse coalesce() {
+        Map<Long, TransactionResponse> added = new LinkedHashMap<>();
+        List<Long> approvedIds = new ArrayList<>();
+        List<Long> rejectedIds = new ArrayList<>();
+        
+        Change change;
+        while ((change = changes.poll()) != null) {
+            switch (change.status()) {
+                case "PENDING" -> added.put(change.id(), change.transaction());
+                case "APPROVED" -> approvedIds.add(change.id());
+                case "REJECTED" -> rejectedIds.add(change.id());
+                default -> log.warn("Ignoring pending queue change with status {}", change.status());
+            }
+        }
+        
+        // Added and finalized within the same batch never needs to appear; the removal is still
+        // sent because a snapshot loaded in the meantime may already contain the row
+        approvedIds.forEach(added::remove);
+        rejectedIds.forEach(added::remove);
+        
+        PendingQueueUpdateResponse batch = new PendingQueueUpdateResponse();
+        batch.setSequence(++sequence);
+        batch.setAdded(new ArrayList<>(added.values()));
+        batch.setApprovedIds(approvedIds);
+        batch.setRejectedIds(rejectedIds);
+        return batch;
+    }
+    
+    private void deliver(Subscriber subscriber, PendingQueueUpdateResponse batch) {
+        synchronized (subscriber) {
+            if (subscriber.backlog != null) {
+                subscriber.backlog.add(batch);
+            } else {
+                send(subscriber, "changes", batch);
+            }
+        }
+    }
+    
+    private boolean send(Subscriber subscriber, String eventName, Object data) {
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .name(eventName)
+                    .data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping pending queue feed: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            return false;
+        }
+    }
+    
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        // Batches held back until the snapshot has been sent, null afterwards
+        private List<PendingQueueUpdateResponse> backlog = new ArrayList<>();
+        
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+    
+    private record Change(Long id, String status, TransactionResponse transaction) {
+    }
+}
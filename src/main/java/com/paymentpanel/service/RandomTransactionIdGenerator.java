@@ -0,0 +1,17 @@
+package com.paymentpanel.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+// Previous strategy: truncated random UUID, kept selectable via transactions.id-generator=uuid
+@Component
+@ConditionalOnProperty(name = "transactions.id-generator", havingValue = "uuid")
+public class RandomTransactionIdGenerator implements TransactionIdGenerator {
+    
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+    }
+}
@@ -0,0 +1,76 @@
+package com.paymentpanel.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets, one per key.
+ *
+ * A bucket is a single AtomicLong holding the time at which it is full again
+ * (the generic cell rate algorithm): taking a token moves that time forward
+ * by one refill interval, and a token is available as long as it stays within
+ * capacity intervals of now. Taking a token is one compare-and-set on the
+ * key's own bucket, so callers never share a lock. Buckets live in a bounded
+ * Caffeine map and expire once they have been idle long enough to be full
+ * again, which loses nothing.
+ */
+public class RateLimiter<K> {
+    
+    private final Cache<K, AtomicLong> buckets;
+    
+    // Time to refill one token, and to refill a whole bucket
+    private final long refillNanos;
+    
+    private final long capacityNanos;
+    
+    private final LongSupplier clock;
+    
+    public RateLimiter(int capacity, double tokensPerSecond, long maxKeys) {
+        this(capacity, tokensPerSecond, maxKeys, System::nanoTime);
+    }
+    
+    RateLimiter(int capacity, double tokensPerSecond, long maxKeys, LongSupplier clock) {
+        if (capacity < 1 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("A rate limit needs a capacity of at least 1 and a positive refill rate");
+        }
+        
+        this.refillNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+        this.capacityNanos = Math.multiplyExact(refillNanos, capacity);
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(capacityNanos))
+                .build();
+    }
+    
+    // Take a token for the key; returns 0 when granted, otherwise the nanoseconds until the next token
+    public long tryAcquire(K key) {
+        long now = clock.getAsLong();
+        
+        AtomicLong bucket = buckets.getIfPresent(key);
+        if (bucket == null) {
+            bucket = buckets.get(key, k -> new AtomicLong(now));
+        }
+        
+        while (true) {
+            long fullAt = bucket.get();
+            // Differences rather than comparisons, so a wrapping nanoTime is harmless
+            long untilFull = Math.max(fullAt - now, 0) + refillNanos;
+            if (untilFull > capacityNanos) {
+                return untilFull - capacityNanos;
+            }
+            if (bucket.compareAndSet(fullAt, now + untilFull)) {
+                return 0;
+            }
+        }
+    }
+    
+    public long size() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,111 @@
+package com.paymentpanel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style generator: 41 bits of milliseconds since 2024-01-01,
+ * 10 bits of node id and 12 bits of per-millisecond sequence, rendered as
+ * 16 uppercase hex digits. IDs sort by creation time, so inserts land at
+ * the right-hand edge of the internal_id index.
+ *
+ * The internal ID is also the only key of the public tracking endpoints,
+ * and the snowflake part alone can be walked from any one ID. Each ID
+ * therefore ends in 16 more hex digits from a SecureRandom, which keep it
+ * unguessable while the prefix keeps the ordering.
+ *
+ * The timestamp and sequence share one AtomicLong that only moves forward
+ * by CAS. When a millisecond's sequence is used up the value carries into
+ * the timestamp, and a clock that steps backwards is ignored. Neither case
+ * blocks or repeats an ID.
+ */
+@Component
+@ConditionalOnProperty(name = "transactions.id-generator", havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+    
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeTransactionIdGenerator.class);
+    
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final SecureRandom random = new SecureRandom();
+    
+    // (milliseconds since epoch << SEQUENCE_BITS) | sequence of the last issued ID
+    private final AtomicLong lastState = new AtomicLong();
+    
+    @Autowired
+    public SnowflakeTransactionIdGenerator(@Value("${transactions.node-id:-1}") long nodeId) {
+        this(nodeId >= 0 ? nodeId : deriveNodeId(), System::currentTimeMillis);
+    }
+    
+    SnowflakeTransactionIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+    
+    @Override
+    public String nextId() {
+        return format(nextLong()) + format(random.nextLong());
+    }
+    
+    long nextLong() {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        
+        long previous;
+        long next;
+        do {
+            previous = lastState.get();
+            next = Math.max(previous + 1, now);
+        } while (!lastState.compareAndSet(previous, next));
+        
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+    
+    // Fixed-width hex keeps lexical order equal to numeric order
+    static String format(long id) {
+        char[] chars = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            chars[i] = HEX_DIGITS[(int) (id & 0xF)];
+            id >>>= 4;
+        }
+        
+        return new String(chars);
+    }
+    
+    private static long deriveNodeId() {
+        long nodeId;
+        try {
+            nodeId = InetAddress.getLocalHost().getHostName().hashCode() & MAX_NODE_ID;
+        } catch (UnknownHostException e) {
+            nodeId = ThreadLocalRandom.current().nextLong(MAX_NODE_ID + 1);
+        }
+        
+        log.warn("transactions.node-id is not set, using derived node id {}; set it explicitly on multi-node deployments", nodeId);
+        return nodeId;
+    }
+}
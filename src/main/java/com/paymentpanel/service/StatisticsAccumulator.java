@@ -0,0 +1,320 @@
+package com.paymentpanel.service;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-memory, per-date accumulator for daily statistic deltas.
+ *
+ * Request threads only touch striped {@link LongAdder} cells and wait-free
+ * HdrHistogram {@link Recorder}s, so concurrent creates/approvals/rejections
+ * never contend on the daily_statistics row.
+ * {@link StatisticsService} periodically drains the deltas and writes them
+ * to the database.
+ */
+@Component
+public class StatisticsAccumulator {
+    
+    // Amounts are kept in minor units, matching the scale-2 numeric columns
+    private static final int AMOUNT_SCALE = 2;
+    
+    private final ConcurrentHashMap<LocalDate, DailyCounters> live = new ConcurrentHashMap<>();
+    
+    // Deltas that have been drained but not yet committed, still visible to readers
+    private final ConcurrentHashMap<LocalDate, StatisticsDelta> inFlight = new ConcurrentHashMap<>();
+    
+    // Record a newly created (pending) transaction
+    public void recordCreated(LocalDate date, BigDecimal amount) {
+        long minorUnits = toMinorUnits(amount);
+        update(date, counters -> {
+            counters.transactionCount.increment();
+            counters.pendingCount.increment();
+            counters.totalAmount.add(minorUnits);
+        });
+    }
+    
+    // Record an approval of a pending transaction
+    public void recordApproved(LocalDate date, long processingTimeSeconds) {
+        update(date, counters -> {
+            counters.approvedCount.increment();
+            counters.pendingCount.decrement();
+            counters.processingTimeSum.add(processingTimeSeconds);
+            counters.approvalTimes.record(processingTimeSeconds);
+        });
+    }
+    
+    // Record a rejection of a pending transaction
+    public void recordRejected(LocalDate date, long processingTimeSeconds) {
+        update(date, counters -> {
+            counters.rejectedCount.increment();
+            counters.pendingCount.decrement();
+            counters.rejectionTimes.record(processingTimeSeconds);
+        });
+    }
+    
+    // Record an already aggregated change for a date, e.g. from a bulk operation
+    public void record(LocalDate date, StatisticsDelta delta) {
+        update(date, counters -> counters.add(delta));
+    }
+    
+    // Unflushed delta for a date (live + in-flight), without resetting anything
+    public StatisticsDelta peek(LocalDate date) {
+        StatisticsDelta delta = StatisticsDelta.EMPTY;
+        
+        DailyCounters counters = live.get(date);
+        if (counters != null) {
+            delta = delta.plus(counters.sum());
+        }
+        
+        StatisticsDelta flushing = inFlight.get(date);
+        if (flushing != null) {
+            delta = delta.plus(flushing);
+        }
+        
+        return delta;
+    }
+    
+    // Dates that currently carry an unflushed delta
+    public Map<LocalDate, StatisticsDelta> peekAll() {
+        Map<LocalDate, StatisticsDelta> result = new HashMap<>();
+        live.keySet().forEach(date -> result.put(date, peek(date)));
+        inFlight.keySet().forEach(date -> result.put(date, peek(date)));
+        result.values().removeIf(StatisticsDelta::isEmpty);
+        return result;
+    }
+    
+    // Take every pending delta out of the live counters and mark it as in flight
+    public Map<LocalDate, StatisticsDelta> drain(LocalDate today) {
+        Map<LocalDate, StatisticsDelta> drained = new HashMap<>();
+        
+        for (Map.Entry<LocalDate, DailyCounters> entry : live.entrySet()) {
+            LocalDate date = entry.getKey();
+            DailyCounters counters = entry.getValue();
+            StatisticsDelta delta = counters.sumThenReset();
+            
+            // Past dates rarely change again, so retire idle counters to keep the map small
+            if (delta.isEmpty() && date.isBefore(today)) {
+                retire(date, counters);
+                continue;
+            }
+            
+            if (!delta.isEmpty()) {
+                inFlight.merge(date, delta, StatisticsDelta::plus);
+                drained.put(date, delta);
+            }
+        }
+        
+        return drained;
+    }
+    
+    // The delta for a date has been committed
+    public void completeFlush(LocalDate date) {
+        inFlight.remove(date);
+    }
+    
+    // The delta for a date could not be committed, hand it back to the live counters
+    public void restore(LocalDate date, StatisticsDelta delta) {
+        record(date, delta);
+        inFlight.remove(date);
+    }
+    
+    private void update(LocalDate date, Consumer<DailyCounters> action) {
+        while (true) {
+            DailyCounters counters = live.computeIfAbsent(date, d -> new DailyCounters());
+            counters.writers.incrementAndGet();
+            try {
+                if (!counters.retired) {
+                    action.accept(counters);
+                    return;
+                }
+            } finally {
+                counters.writers.decrementAndGet();
+            }
+            // Lost the race with retire(), the next lookup creates fresh counters
+        }
+    }
+    
+    private void retire(LocalDate date, DailyCounters counters) {
+        counters.retired = true;
+        
+        // Writers that got in before the flag was set finish on these counters
+        while (counters.writers.get() > 0) {
+            Thread.onSpinWait();
+        }
+        
+        live.remove(date, counters);
+        
+        StatisticsDelta leftover = counters.sumThenReset();
+        if (!leftover.isEmpty()) {
+            update(date, fresh -> fresh.add(leftover));
+        }
+    }
+    
+    static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, AMOUNT_SCALE);
+    }
+    
+    private static final class DailyCounters {
+        private final LongAdder transactionCount = new LongAdder();
+        private final LongAdder approvedCount = new LongAdder();
+        private final LongAdder rejectedCount = new LongAdder();
+        private final LongAdder pendingCount = new LongAdder();
+        private final LongAdder totalAmount = new LongAdder();
+        private final LongAdder processingTimeSum = new LongAdder();
+        private final ProcessingTimes approvalTimes = new ProcessingTimes();
+        private final ProcessingTimes rejectionTimes = new ProcessingTimes();
+        private final AtomicInteger writers = new AtomicInteger();
+        private volatile boolean retired;
+        
+        private void add(StatisticsDelta delta) {
+            transactionCount.add(delta.transactionCount());
+            approvedCount.add(delta.approvedCount());
+            rejectedCount.add(delta.rejectedCount());
+            pendingCount.add(delta.pendingCount());
+            totalAmount.add(delta.totalAmountMinorUnits());
+            processingTimeSum.add(delta.processingTimeSum());
+            approvalTimes.add(delta.approvalTimes());
+            rejectionTimes.add(delta.rejectionTimes());
+        }
+        
+        private StatisticsDelta sum() {
+            return new StatisticsDelta(
+                    transactionCount.sum(),
+                    approvedCount.sum(),
+                    rejectedCount.sum(),
+                    pendingCount.sum(),
+                    totalAmount.sum(),
+                    processingTimeSum.sum(),
+                    approvalTimes.snapshot(),
+                    rejectionTimes.snapshot());
+        }
+        
+        private StatisticsDelta sumThenReset() {
+            return new StatisticsDelta(
+                    transactionCount.sumThenReset(),
+                    approvedCount.sumThenReset(),
+                    rejectedCount.sumThenReset(),
+                    pendingCount.sumThenReset(),
+                    totalAmount.sumThenReset(),
+                    processingTimeSum.sumThenReset(),
+                    approvalTimes.snapshotThenReset(),
+                    rejectionTimes.snapshotThenReset());
+        }
+    }
+    
+    /**
+     * Processing time samples for one date and outcome.
+     *
+     * Writers record into the {@link Recorder} without locking. Readers and the
+     * flush move its interval histogram into {@code collected} under the lock,
+     * so a peek never hides samples from the next drain.
+     */
+    private static final class ProcessingTimes {
+        private final Recorder recorder = new Recorder(LatencySketch.SIGNIFICANT_DIGITS);
+        private Histogram collected = LatencySketch.newHistogram();
+        
+        private void record(long seconds) {
+            recorder.recordValue(Math.max(0, seconds));
+        }
+        
+        private void add(LatencySketch sketch) {
+            for (HistogramIterationValue value : sketch.histogram().recordedValues()) {
+                recorder.recordValueWithCount(value.getValueIteratedTo(), value.getCountAtValueIteratedTo());
+            }
+        }
+        
+        private synchronized LatencySketch snapshot() {
+            collected.add(recorder.getIntervalHistogram());
+            return LatencySketch.wrap(collected.copy());
+        }
+        
+        private synchronized LatencySketch snapshotThenReset() {
+            collected.add(recorder.getIntervalHistogram());
+            LatencySketch sketch = LatencySketch.wrap(collected);
+            collected = LatencySketch.newHistogram();
+            return sketch;
+        }
+    }
+    
+    /**
+     * Immutable snapshot of the counter changes for one date.
+     */
+    public record StatisticsDelta(
+            long transactionCount,
+            long approvedCount,
+            long rejectedCount,
+            long pendingCount,
+            long totalAmountMinorUnits,
+            long processingTimeSum,
+            LatencySketch approvalTimes,
+            LatencySketch rejectionTimes) {
+        
+        public static final StatisticsDelta EMPTY = new StatisticsDelta(0, 0, 0, 0, 0, 0);
+        
+        // A change without processing time samples
+        public StatisticsDelta(long transactionCount, long approvedCount, long rejectedCount, long pendingCount,
+                               long totalAmountMinorUnits, long processingTimeSum) {
+            this(transactionCount, approvedCount, rejectedCount, pendingCount, totalAmountMinorUnits, processingTimeSum,
+                    LatencySketch.EMPTY, LatencySketch.EMPTY);
+        }
+        
+        // An approval of a pending transaction
+        public static StatisticsDelta approved(long processingTimeSeconds) {
+            return new StatisticsDelta(0, 1, 0, -1, 0, processingTimeSeconds,
+                    LatencySketch.of(processingTimeSeconds), LatencySketch.EMPTY);
+        }
+        
+        // A rejection of a pending transaction
+        public static StatisticsDelta rejected(long processingTimeSeconds) {
+            return new StatisticsDelta(0, 0, 1, -1, 0, 0,
+                    LatencySketch.EMPTY, LatencySketch.of(processingTimeSeconds));
+        }
+        
+        // A newly created (pending) transaction
+        public static StatisticsDelta created(BigDecimal amount) {
+            return new StatisticsDelta(1, 0, 0, 1, toMinorUnits(amount), 0);
+        }
+        
+        public StatisticsDelta plus(StatisticsDelta other) {
+            return new StatisticsDelta(
+                    transactionCount + other.transactionCount,
+                    approvedCount + other.approvedCount,
+                    rejectedCount + other.rejectedCount,
+                    pendingCount + other.pendingCount,
+                    totalAmountMinorUnits + other.totalAmountMinorUnits,
+                    processingTimeSum + other.processingTimeSum,
+                    approvalTimes.plus(other.approvalTimes),
+                    rejectionTimes.plus(other.rejectionTimes));
+        }
+        
+        public BigDecimal totalAmount() {
+            return fromMinorUnits(totalAmountMinorUnits);
+        }
+        
+        public boolean isEmpty() {
+            return transactionCount == 0 && approvedCount == 0 && rejectedCount == 0
+                    && pendingCount == 0 && totalAmountMinorUnits == 0 && processingTimeSum == 0
+                    && !hasProcessingTimes();
+        }
+        
+        public boolean hasProcessingTimes() {
+            return !approvalTimes.isEmpty() || !rejectionTimes.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.response.StatisticsRebuildResponse;
+import com.paymentpanel.exception.ResourceNotFoundException;
+import com.paymentpanel.exception.ValidationException;
+import com.paymentpanel.model.DailyStatistic;
+import com.paymentpanel.model.StatisticsGranularity;
+import com.paymentpanel.model.StatisticsRollup;
+import com.paymentpanel.repository.DailyStatisticRepository;
+import com.paymentpanel.repository.StatisticsRollupRepository;
+import com.paymentpanel.repository.TransactionRepository;
+import com.paymentpanel.repository.TransactionRepository.StatisticsGroup;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recomputes daily_statistics for a date range straight from transactions
+ * and transactions_archive, then the week and month rollups the range touches.
+ *
+ * Every day is one chunk: a single aggregate query, then a short database
+ * transaction that locks the day's row and replaces it, so readers and the
+ * statistics flush see either the old or the rebuilt day. Days run in
+ * parallel on a small fixed pool, sized well below the connection pool.
+ * One rebuild runs at a time and reports its progress while it runs.
+ *
+ * Changes other nodes still buffer when a day is swapped in are applied on
+ * top of it and counted twice, so rebuild days that have settled.
+ */
+@Component
+public class StatisticsRebuilder {
+    
+    private static final Logger log = LoggerFactory.getLogger(StatisticsRebuilder.class);
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private DailyStatisticRepository dailyStatisticRepository;
+    
+    @Autowired
+    private StatisticsRollupRepository statisticsRollupRepository;
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final ThreadPoolExecutor executor;
+    
+    private final int maxDays;
+    
+    private final AtomicReference<RebuildJob> lastJob = new AtomicReference<>();
+    
+    public StatisticsRebuilder(PlatformTransactionManager transactionManager,
+                               @Value("${statistics.rebuild.parallelism:4}") int parallelism,
+                               @Value("${statistics.rebuild.max-days:1100}") int maxDays) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxDays = maxDays;
+        // The queue holds every day of the largest allowed range, nothing beyond it
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxDays), runnable -> {
+                    Thread thread = new Thread(runnable, "statistics-rebuild");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    // Start rebuilding every day from startDate to endDate inclusive; returns at once with the initial progress
+    public synchronized StatisticsRebuildResponse start(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new ValidationException("End date must not be before start date");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= maxDays) {
+            throw new ValidationException("A statistics rebuild covers at most " + maxDays + " days");
+        }
+        
+        RebuildJob previous = lastJob.get();
+        if (previous != null && previous.finishedAt == null) {
+            throw new ValidationException("A statistics rebuild is already running");
+        }
+        
+        // Changes buffered on this node go into the old rows first, so the swap replaces rather than repeats them
+        statisticsService.flushStatistics();
+        
+        List<LocalDate> days = startDate.datesUntil(endDate.plusDays(1)).toList();
+        RebuildJob job = new RebuildJob(startDate, endDate, days.size());
+        lastJob.set(job);
+        log.info("Rebuilding statistics for {} days from {} to {}", days.size(), startDate, endDate);
+        
+        CompletableFuture<?>[] chunks = days.stream()
+                .map(date -> CompletableFuture.runAsync(() -> rebuildDay(job, date), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(chunks).whenComplete((ignored, error) -> finish(job, days));
+        
+        return job.toResponse();
+    }
+    
+    // Progress of the running rebuild, or the result of the last one
+    public StatisticsRebuildResponse getProgress() {
+        RebuildJob job = lastJob.get();
+        if (job == null) {
+            throw new ResourceNotFoundException("No statistics rebuild has been started");
+        }
+        return job.toResponse();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    // Helper methods
+    private void rebuildDay(RebuildJob job, LocalDate date) {
+        try {
+            List<StatisticsGroup> groups = transactionRepository.aggregateStatistics(
+                    date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+            DailyStatistic rebuilt = aggregate(date, groups);
+            
+            retryOnce(() -> transactionTemplate.executeWithoutResult(status -> {
+                DailyStatistic statistic = dailyStatisticRepository.findForUpdateByDate(date).orElseGet(DailyStatistic::new);
+                copyCounters(rebuilt, statistic);
+                statistic.setDate(date);
+                dailyStatisticRepository.save(statistic);
+            }));
+            
+            job.dayCompleted(rebuilt.getTransactionCount());
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild statistics for {}", date, e);
+            job.dayFailed();
+        }
+    }
+    
+    private DailyStatistic aggregate(LocalDate date, List<StatisticsGroup> groups) {
+        long transactionCount = 0;
+        long approvedCount = 0;
+        long rejectedCount = 0;
+        long pendingCount = 0;
+        long processingTimeSum = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        Histogram approvalTimes = LatencySketch.newHistogram();
+        Histogram rejectionTimes = LatencySketch.newHistogram();
+        
+        for (StatisticsGroup group : groups) {
+            long count = group.getTransactionCount();
+            long seconds = group.getProcessingTimeSeconds() != null ? Math.max(0, group.getProcessingTimeSeconds()) : 0;
+            
+            transactionCount += count;
+            totalAmount = totalAmount.add(group.getTotalAmount());
+            switch (group.getStatus()) {
+                case "APPROVED" -> {
+                    approvedCount += count;
+                    processingTimeSum += seconds * count;
+                    approvalTimes.recordValueWithCount(seconds, count);
+                }
+                case "REJECTED" -> {
+                    rejectedCount += count;
+                    rejectionTimes.recordValueWithCount(seconds, count);
+                }
+                case "PENDING" -> pendingCount += count;
+                default -> { }
+            }
+        }
+        
+        DailyStatistic statistic = new DailyStatistic();
+        statistic.setDate(date);
+        statistic.setTransactionCount((int) transactionCount);
+        statistic.setApprovedCount((int) approvedCount);
+        statistic.setRejectedCount((int) rejectedCount);
+        statistic.setPendingCount((int) pendingCount);
+        statistic.setTotalAmount(totalAmount);
+        statistic.setAverageProcessingTime(approvedCount > 0 ? (int) (processingTimeSum / approvedCount) : 0);
+        statistic.setApprovalTimeSketch(LatencySketch.wrap(approvalTimes).encode());
+        statistic.setRejectionTimeSketch(LatencySketch.wrap(rejectionTimes).encode());
+        
+        return statistic;
+    }
+    
+    // Rollups are the sum of their days, so every week and month the range touches is recomputed from them
+    private void finish(RebuildJob job, List<LocalDate> days) {
+        for (StatisticsGranularity granularity : StatisticsService.ROLLUPS) {
+            Set<LocalDate> periods = new TreeSet<>();
+            days.forEach(date -> periods.add(granularity.periodStart(date)));
+            
+            for (LocalDate periodStart : periods) {
+                try {
+                    retryOnce(() -> transactionTemplate.executeWithoutResult(status -> rebuildRollup(granularity, periodStart)));
+                } catch (RuntimeException e) {
+                    log.warn("Could not rebuild the {} statistics of {}", granularity, periodStart, e);
+                    job.rollupFailed();
+                }
+            }
+        }
+        
+        job.finish();
+        StatisticsRebuildResponse result = job.toResponse();
+        log.info("Rebuilt statistics from {} to {}: {} days, {} failed, {} transactions in {} ms ({} transactions/s)",
+                result.getStartDate(), result.getEndDate(), result.getCompletedDays(), result.getFailedDays(),
+                result.getTransactionCount(), result.getElapsedMillis(), Math.round(result.getTransactionsPerSecond()));
+    }
+    
+    private void rebuildRollup(StatisticsGranularity granularity, LocalDate periodStart) {
+        StatisticsRollup rollup = statisticsRollupRepository.findForUpdateByGranularityAndPeriodStart(granularity, periodStart)
+                .orElseGet(StatisticsRollup::new);
+        List<DailyStatistic> days = dailyStatisticRepository.findByDateBetweenOrderByDateDesc(
+                periodStart, granularity.periodEnd(periodStart));
+        
+        long transactionCount = 0;
+        long approvedCount = 0;
+        long rejectedCount = 0;
+        long pendingCount = 0;
+        long processingTimeSum = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        LatencySketch approvalTimes = LatencySketch.EMPTY;
+        LatencySketch rejectionTimes = LatencySketch.EMPTY;
+        
+        for (DailyStatistic day : days) {
+            transactionCount += day.getTransactionCount();
+            approvedCount += day.getApprovedCount();
+            rejectedCount += day.getRejectedCount();
+            pendingCount += day.getPendingCount();
+            processingTimeSum += (long) day.getAverageProcessingTime() * day.getApprovedCount();
+            totalAmount = totalAmount.add(day.getTotalAmount());
+            approvalTimes = approvalTimes.plus(LatencySketch.decode(day.getApprovalTimeSketch()));
+            rejectionTimes = rejectionTimes.plus(LatencySketch.decode(day.getRejectionTimeSketch()));
+        }
+        
+        rollup.setGranularity(granularity);
+        rollup.setPeriodStart(periodStart);
+        rollup.setTransactionCount((int) transactionCount);
+        rollup.setApprovedCount((int) approvedCount);
+        rollup.setRejectedCount((int) rejectedCount);
+        rollup.setPendingCount((int) pendingCount);
+        rollup.setTotalAmount(totalAmount);
+        rollup.setAverageProcessingTime(approvedCount > 0 ? (int) (processingTimeSum / approvedCount) : 0);
+        rollup.setApprovalTimeSketch(approvalTimes.encode());
+        rollup.setRejectionTimeSketch(rejectionTimes.encode());
+        statisticsRollupRepository.save(rollup);
+    }
+    
+    private static void copyCounters(DailyStatistic from, DailyStatistic to) {
+        to.setTransactionCount(from.getTransactionCount());
+        to.setApprovedCount(from.getApprovedCount());
+        to.setRejectedCount(from.getRejectedCount());
+        to.setPendingCount(from.getPendingCount());
+        to.setTotalAmount(from.getTotalAmount());
+        to.setAverageProcessingTime(from.getAverageProcessingTime());
+        to.setApprovalTimeSketch(from.getApprovalTimeSketch());
+        to.setRejectionTimeSketch(from.getRejectionTimeSketch());
+    }
+    
+    // A flush may insert the row between our lookup and insert; the second attempt finds and locks it
+    private static void retryOnce(Runnable swap) {
+        try {
+            swap.run();
+        } catch (DataIntegrityViolationException e) {
+            swap.run();
+        }
+    }
+    
+    private static final class RebuildJob {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final int totalDays;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger completedDays = new AtomicInteger();
+        private final AtomicInteger failedDays = new AtomicInteger();
+        private final AtomicInteger failedRollups = new AtomicInteger();
+        private final LongAdder transactionCount = new LongAdder();
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedNanos;
+        
+        private RebuildJob(LocalDate startDate, LocalDate endDate, int totalDays) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.totalDays = totalDays;
+        }
+        
+        private void dayCompleted(long transactions) {
+            transactionCount.add(transactions);
+            int completed = completedDays.incrementAndGet();
+            
+            // Roughly every tenth of the range
+            if (completed % Math.max(1, totalDays / 10) == 0 && completed < totalDays) {
+                StatisticsRebuildResponse progress = toResponse();
+                log.info("Statistics rebuild at {}/{} days, {} transactions/s",
+                        completed, totalDays, Math.round(progress.getTransactionsPerSecond()));
+            }
+        }
+        
+        private void dayFailed() {
+            failedDays.incrementAndGet();
+        }
+        
+        private void rollupFailed() {
+            failedRollups.incrementAndGet();
+        }
+        
+        private void finish() {
+            finishedNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now();
+        }
+        
+        private StatisticsRebuildResponse toResponse() {
+            LocalDateTime finished = finishedAt;
+            long elapsedNanos = (finished != null ? finishedNanos : System.nanoTime()) - startNanos;
+            double elapsedSeconds = Math.max(elapsedNanos, 1) / 1e9;
+            
+            StatisticsRebuildResponse response = new StatisticsRebuildResponse();
+            if (finished == null) {
+                response.setStatus("RUNNING");
+            } else {
+                response.setStatus(failedDays.get() == 0 && failedRollups.get() == 0 ? "COMPLETED" : "FAILED");
+            }
+            response.setStartDate(startDate);
+            response.setEndDate(endDate);
+            response.setTotalDays(totalDays);
+            response.setCompletedDays(completedDays.get());
+            response.setFailedDays(failedDays.get());
+            response.setTransactionCount(transactionCount.sum());
+            response.setStartedAt(startedAt);
+            response.setFinishedAt(finished);
+            response.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            response.setDaysPerSecond(completedDays.get() / elapsedSeconds);
+            response.setTransactionsPerSecond(transactionCount.sum() / elapsedSeconds);
+            
+            return response;
+        }
+    }
+}
@@ -1,42 +1,157 @@
 package com.paymentpanel.service;
+import com.paymentpanel.exception.ValidationException;
 import com.paymentpanel.model.DailyStatistic;
+import com.paymentpanel.model.StatisticsGranularity;
+import com.paymentpanel.model.StatisticsRollup;
 import com.paymentpanel.model.Transaction;
+import com.paymentpanel.dto.response.ProcessingTimeResponse;
 import com.paymentpanel.dto.response.StatisticsResponse;
 import com.paymentpanel.repository.DailyStatisticRepository;
+import com.paymentpanel.repository.DailyStatisticRepository.StatisticSketches;
+import com.paymentpanel.repository.DailyStatisticRepository.StatisticTotals;
+import com.paymentpanel.repository.StatisticsRollupRepository;
+import com.paymentpanel.service.StatisticsAccumulator.StatisticsDelta;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class StatisticsService {
     
+    private static final Logger log = LoggerFactory.getLogger(StatisticsService.class);
+    
+    static final List<StatisticsGranularity> ROLLUPS = List.of(StatisticsGranularity.WEEK, StatisticsGranularity.MONTH);
+    
     @Autowired
     private DailyStatisticRepository dailyStatisticRepository;
     
+    @Autowired
+    private StatisticsRollupRepository statisticsRollupRepository;
+    
+    @Autowired
+    private StatisticsAccumulator statisticsAccumulator;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
     // Get statistics for a specific date
     public StatisticsResponse getStatisticsByDate(LocalDate date) {
         DailyStatistic dailyStatistic = dailyStatisticRepository.findByDate(date)
                 .orElse(createEmptyStatistic(date));
         
-        return mapToResponse(dailyStatistic);
+        return mapToResponse(dailyStatistic, statisticsAccumulator.peek(date));
     }
     
     // Get statistics for a date range
+    @Transactional(readOnly = true)
     public List<StatisticsResponse> getStatisticsForDateRange(LocalDate startDate, LocalDate endDate) {
         List<DailyStatistic> statistics = dailyStatisticRepository.findByDateBetweenOrderByDateDesc(startDate, endDate);
         
-        return statistics.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        Map<LocalDate, StatisticsDelta> pending = statisticsAccumulator.peekAll();
+        pending.keySet().removeIf(date -> date.isBefore(startDate) || date.isAfter(endDate));
+        
+        return withPendingDeltas(statistics, pending);
+    }
+    
+    // Get statistics for a date range, one entry per day, week or month; weeks and months cut by the range are returned whole
+    @Transactional(readOnly = true)
+    public List<StatisticsResponse> getStatisticsForDateRange(LocalDate startDate, LocalDate endDate, String granularity) {
+        StatisticsGranularity periods = parseGranularity(granularity);
+        if (periods == StatisticsGranularity.DAY) {
+            return getStatisticsForDateRange(startDate, endDate);
+        }
+        
+        LocalDate firstPeriod = periods.periodStart(startDate);
+        LocalDate lastPeriod = periods.periodStart(endDate);
+        List<DailyStatistic> statistics = statisticsRollupRepository
+                .findByGranularityAndPeriodStartBetweenOrderByPeriodStartDesc(periods, firstPeriod, lastPeriod).stream()
+                .map(this::toStatistic)
+                .toList();
+        
+        Map<LocalDate, StatisticsDelta> pending = new HashMap<>();
+        statisticsAccumulator.peekAll().forEach((date, delta) -> {
+            LocalDate period = periods.periodStart(date);
+            if (!period.isBefore(firstPeriod) && !period.isAfter(lastPeriod)) {
+                pending.merge(period, delta, StatisticsDelta::plus);
+            }
+        });
+        
+        return withPendingDeltas(statistics, pending);
+    }
+    
+    // Processing time percentiles over a whole date range, from the daily sketches added together
+    @Transactional(readOnly = true)
+    public ProcessingTimeResponse getProcessingTimesForDateRange(LocalDate startDate, LocalDate endDate) {
+        LatencySketch approvalTimes = LatencySketch.EMPTY;
+        LatencySketch rejectionTimes = LatencySketch.EMPTY;
+        
+        for (StatisticSketches sketches : dailyStatisticRepository.findSketchesByDateBetween(startDate, endDate)) {
+            approvalTimes = approvalTimes.plus(LatencySketch.decode(sketches.getApprovalTimeSketch()));
+            rejectionTimes = rejectionTimes.plus(LatencySketch.decode(sketches.getRejectionTimeSketch()));
+        }
+        
+        for (Map.Entry<LocalDate, StatisticsDelta> entry : statisticsAccumulator.peekAll().entrySet()) {
+            if (!entry.getKey().isBefore(startDate) && !entry.getKey().isAfter(endDate)) {
+                approvalTimes = approvalTimes.plus(entry.getValue().approvalTimes());
+                rejectionTimes = rejectionTimes.plus(entry.getValue().rejectionTimes());
+            }
+        }
+        
+        ProcessingTimeResponse response = new ProcessingTimeResponse();
+        response.setStartDate(startDate);
+        response.setEndDate(endDate);
+        response.setApprovalCount(approvalTimes.count());
+        response.setApprovalTimeP50(approvalTimes.percentile(50));
+        response.setApprovalTimeP90(approvalTimes.percentile(90));
+        response.setApprovalTimeP99(approvalTimes.percentile(99));
+        response.setRejectionCount(rejectionTimes.count());
+        response.setRejectionTimeP50(rejectionTimes.percentile(50));
+        response.setRejectionTimeP90(rejectionTimes.percentile(90));
+        response.setRejectionTimeP99(rejectionTimes.percentile(99));
+        
+        return response;
+    }
+    
+    // Approximate number of transactions (optionally in a status), from the daily counters
+    public Long getApproximateTransactionCount(String status) {
+        StatisticTotals totals = dailyStatisticRepository.sumTotals();
+        StatisticsDelta pending = statisticsAccumulator.peekAll().values().stream()
+                .reduce(StatisticsDelta.EMPTY, StatisticsDelta::plus);
+        
+        if (status == null) {
+            return nullToZero(totals.getTransactionCount()) + pending.transactionCount();
+        }
+        
+        switch (status) {
+            case "APPROVED":
+                return nullToZero(totals.getApprovedCount()) + pending.approvedCount();
+            case "REJECTED":
+                return nullToZero(totals.getRejectedCount()) + pending.rejectedCount();
+            case "PENDING":
+                return Math.max(0, nullToZero(totals.getPendingCount()) + pending.pendingCount());
+            default:
+                return null;
+        }
     }
     
     // Update daily statistics for a new transaction
-    @Transactional
     public void updateDailyStatisticForNewTransaction(Transaction transaction) {
         LocalDate date = transaction.getCreatedAt().toLocalDate();
         BigDecimal amount = transaction.getAmount();
@@ -45,43 +160,17 @@ public class StatisticsService {
     }
     
     // Increment pending transaction count
-    @Transactional
     public void incrementPendingTransactionCount(LocalDate date, BigDecimal amount) {
-        DailyStatistic dailyStatistic = dailyStatisticRepository.findByDate(date)
-                .orElse(createEmptyStatistic(date));
-        
-        dailyStatistic.setTransactionCount(dailyStatistic.getTransactionCount() + 1);
-        dailyStatistic.setPendingCount(dailyStatistic.getPendingCount() + 1);
-        dailyStatistic.setTotalAmount(dailyStatistic.getTotalAmount().add(amount));
-        
-        dailyStatisticRepository.save(dailyStatistic);
+        AfterCommit.run(() -> statisticsAccumulator.recordCreated(date, amount));
     }
     
     // Update statistics for approved transaction
-    @Transactional
     public void updateStatisticsForApprovedTransaction(LocalDate date, BigDecimal amount, Long processingTimeSeconds) {
-        DailyStatistic dailyStatistic = dailyStatisticRepository.findByDate(date)
-                .orElse(createEmptyStatistic(date));
-        
-        // Increment approved count, decrement pending count
-        dailyStatistic.setApprovedCount(dailyStatistic.getApprovedCount() + 1);
-        dailyStatistic.setPendingCount(Math.max(0, dailyStatistic.getPendingCount() - 1));
-        
-        // Update average processing time
-        int currentTotal = dailyStatistic.getAverageProcessingTime() * (dailyStatistic.getApprovedCount() - 1);
-        int newAverage = 0;
-        
-        if (dailyStatistic.getApprovedCount() > 0) {
-            newAverage = (int) ((currentTotal + processingTimeSeconds) / dailyStatistic.getApprovedCount());
-        }
-        
-        dailyStatistic.setAverageProcessingTime(newAverage);
-        
-        dailyStatisticRepository.save(dailyStatistic);
+        long seconds = processingTimeSeconds != null ? processingTimeSeconds : 0L;
+        AfterCommit.run(() -> statisticsAccumulator.recordApproved(date, seconds));
     }
     
     // Update daily statistics for an approved transaction
-    @Transactional
     public void updateDailyStatisticForApprovedTransaction(Transaction transaction) {
         LocalDate date = transaction.getCreatedAt().toLocalDate();
         BigDecimal amount = transaction.getAmount();
@@ -95,20 +184,12 @@ public class StatisticsService {
     }
     
     // Update statistics for rejected transaction
-    @Transactional
     public void updateStatisticsForRejectedTransaction(LocalDate date, BigDecimal amount, Long processingTimeSeconds) {
-        DailyStatistic dailyStatistic = dailyStatisticRepository.findByDate(date)
-                .orElse(createEmptyStatistic(date));
-        
-        // Increment rejected count, decrement pending count
-        dailyStatistic.setRejectedCount(dailyStatistic.getRejectedCount() + 1);
-        dailyStatistic.setPendingCount(Math.max(0, dailyStatistic.getPendingCount() - 1));
-        
-        dailyStatisticRepository.save(dailyStatistic);
+        long seconds = processingTimeSeconds != null ? processingTimeSeconds : 0L;
+        AfterCommit.run(() -> statisticsAccumulator.recordRejected(date, seconds));
     }
     
     // Update daily statistics for a rejected transaction
-    @Transactional
     public void updateDailyStatisticForRejectedTransaction(Transaction transaction) {
         LocalDate date = transaction.getCreatedAt().toLocalDate();
         BigDecimal amount = transaction.getAmount();
@@ -121,6 +202,132 @@ public class StatisticsService {
         updateStatisticsForRejectedTransaction(date, amount, processingTimeSeconds);
     }
     
+    // Update statistics with per-date deltas aggregated by a bulk operation
+    public void updateStatisticsForBulkChange(Map<LocalDate, StatisticsDelta> deltas) {
+        AfterCommit.run(() -> deltas.forEach(statisticsAccumulator::record));
+    }
+    
+    // Write accumulated deltas to the daily_statistics table
+    @Scheduled(fixedDelayString = "${statistics.flush-interval-ms:5000}")
+    public void flushStatistics() {
+        statisticsAccumulator.drain(LocalDate.now()).forEach(this::flushDelta);
+    }
+    
+    // Make sure nothing is lost on a graceful shutdown
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushStatistics();
+    }
+    
+    // Running average of processing time after adding a batch of samples
+    public static int mergeAverage(int currentAverage, long currentCount, long addedSum, long addedCount) {
+        long totalCount = currentCount + addedCount;
+        if (totalCount <= 0) {
+            return currentAverage;
+        }
+        
+        return (int) ((currentAverage * currentCount + addedSum) / totalCount);
+    }
+    
+    private void flushDelta(LocalDate date, StatisticsDelta delta) {
+        try {
+            if (!applyDeltaToAllPeriods(date, delta)) {
+                // First change for the day, its week or its month
+                createMissingRows(date);
+                if (!applyDeltaToAllPeriods(date, delta)) {
+                    throw new IncorrectUpdateSemanticsDataAccessException("Statistics rows for " + date + " are missing");
+                }
+            }
+            statisticsAccumulator.completeFlush(date);
+        } catch (DataAccessException e) {
+            log.warn("Could not flush statistics for {}, will retry on next flush", date, e);
+            statisticsAccumulator.restore(date, delta);
+        }
+    }
+    
+    // The day, week and month rows change in one database transaction, so the rollups never drift from the days
+    private boolean applyDeltaToAllPeriods(LocalDate date, StatisticsDelta delta) {
+        Boolean applied = transactionTemplate.execute(status -> {
+            boolean allRowsExist = applyDelta(date, delta) == 1;
+            for (StatisticsGranularity granularity : ROLLUPS) {
+                allRowsExist = allRowsExist && applyRollupDelta(granularity, date, delta) == 1;
+            }
+            
+            if (!allRowsExist) {
+                status.setRollbackOnly();
+            } else if (delta.hasProcessingTimes()) {
+                mergeSketches(date, delta);
+            }
+            return allRowsExist;
+        });
+        return Boolean.TRUE.equals(applied);
+    }
+    
+    private int applyDelta(LocalDate date, StatisticsDelta delta) {
+        return dailyStatisticRepository.applyDelta(
+                date,
+                (int) delta.transactionCount(),
+                (int) delta.approvedCount(),
+                (int) delta.rejectedCount(),
+                (int) delta.pendingCount(),
+                delta.totalAmount(),
+                delta.processingTimeSum());
+    }
+    
+    private int applyRollupDelta(StatisticsGranularity granularity, LocalDate date, StatisticsDelta delta) {
+        return statisticsRollupRepository.applyDelta(
+                granularity.name(),
+                granularity.periodStart(date),
+                (int) delta.transactionCount(),
+                (int) delta.approvedCount(),
+                (int) delta.rejectedCount(),
+                (int) delta.pendingCount(),
+                delta.totalAmount(),
+                delta.processingTimeSum());
+    }
+    
+    // applyDelta has locked the rows, so no concurrent flush can merge into the same stale sketch
+    private void mergeSketches(LocalDate date, StatisticsDelta delta) {
+        dailyStatisticRepository.findSketchesByDate(date).ifPresent(current ->
+                dailyStatisticRepository.updateSketches(date,
+                        merge(current.getApprovalTimeSketch(), delta.approvalTimes()),
+                        merge(current.getRejectionTimeSketch(), delta.rejectionTimes())));
+        
+        for (StatisticsGranularity granularity : ROLLUPS) {
+            LocalDate periodStart = granularity.periodStart(date);
+            statisticsRollupRepository.findSketches(granularity, periodStart).ifPresent(current ->
+                    statisticsRollupRepository.updateSketches(granularity, periodStart,
+                            merge(current.getApprovalTimeSketch(), delta.approvalTimes()),
+                            merge(current.getRejectionTimeSketch(), delta.rejectionTimes())));
+        }
+    }
+    
+    private static byte[] merge(byte[] stored, LatencySketch added) {
+        return LatencySketch.decode(stored).plus(added).encode();
+    }
+    
+    // Insert zeroed rows for whatever is missing, each in its own transaction
+    private void createMissingRows(LocalDate date) {
+        if (dailyStatisticRepository.findByDate(date).isEmpty()) {
+            insertUnlessPresent(() -> dailyStatisticRepository.saveAndFlush(createEmptyStatistic(date)));
+        }
+        
+        for (StatisticsGranularity granularity : ROLLUPS) {
+            LocalDate periodStart = granularity.periodStart(date);
+            if (!statisticsRollupRepository.existsByGranularityAndPeriodStart(granularity, periodStart)) {
+                insertUnlessPresent(() -> statisticsRollupRepository.saveAndFlush(createEmptyRollup(granularity, periodStart)));
+            }
+        }
+    }
+    
+    private static void insertUnlessPresent(Runnable insert) {
+        try {
+            insert.run();
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the row in the meantime
+        }
+    }
+    
     // Helper methods
     private DailyStatistic createEmptyStatistic(LocalDate date) {
         DailyStatistic dailyStatistic = new DailyStatistic();
@@ -135,6 +342,89 @@ public class StatisticsService {
         return dailyStatistic;
     }
     
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+    
+    private StatisticsRollup createEmptyRollup(StatisticsGranularity granularity, LocalDate periodStart) {
+        StatisticsRollup rollup = new StatisticsRollup();
+        rollup.setGranularity(granularity);
+        rollup.setPeriodStart(periodStart);
+        
+        return rollup;
+    }
+    
+    // A week or month in the shape of a day, dated by the first day of the period
+    private DailyStatistic toStatistic(StatisticsRollup rollup) {
+        DailyStatistic statistic = createEmptyStatistic(rollup.getPeriodStart());
+        statistic.setTransactionCount(rollup.getTransactionCount());
+        statistic.setApprovedCount(rollup.getApprovedCount());
+        statistic.setRejectedCount(rollup.getRejectedCount());
+        statistic.setPendingCount(rollup.getPendingCount());
+        statistic.setTotalAmount(rollup.getTotalAmount());
+        statistic.setAverageProcessingTime(rollup.getAverageProcessingTime());
+        statistic.setApprovalTimeSketch(rollup.getApprovalTimeSketch());
+        statistic.setRejectionTimeSketch(rollup.getRejectionTimeSketch());
+        
+        return statistic;
+    }
+    
+    private static StatisticsGranularity parseGranularity(String granularity) {
+        try {
+            return StatisticsGranularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Granularity must be one of day, week or month");
+        }
+    }
+    
+    // Merge deltas that have not been flushed yet, including periods without a persisted row
+    private List<StatisticsResponse> withPendingDeltas(List<DailyStatistic> statistics, Map<LocalDate, StatisticsDelta> pending) {
+        List<StatisticsResponse> responses = new ArrayList<>();
+        for (DailyStatistic statistic : statistics) {
+            StatisticsDelta delta = pending.remove(statistic.getDate());
+            responses.add(mapToResponse(statistic, delta != null ? delta : StatisticsDelta.EMPTY));
+        }
+        
+        pending.forEach((date, delta) -> responses.add(mapToResponse(createEmptyStatistic(date), delta)));
+        responses.sort(Comparator.comparing(StatisticsResponse::getDate).reversed());
+        
+        return responses;
+    }
+    
+    // Same arithmetic as DailyStatisticRepository.applyDelta, done on the response so the loaded entity is never changed
+    private void applyToResponse(StatisticsResponse response, StatisticsDelta delta) {
+        int approvedCount = response.getApprovedCount();
+        
+        response.setTransactionCount((int) (response.getTransactionCount() + delta.transactionCount()));
+        response.setApprovedCount((int) (approvedCount + delta.approvedCount()));
+        response.setRejectedCount((int) (response.getRejectedCount() + delta.rejectedCount()));
+        response.setPendingCount((int) Math.max(0, response.getPendingCount() + delta.pendingCount()));
+        response.setTotalAmount(response.getTotalAmount().add(delta.totalAmount()));
+        response.setAverageProcessingTime(mergeAverage(
+                response.getAverageProcessingTime(), approvedCount,
+                delta.processingTimeSum(), delta.approvedCount()));
+    }
+    
+    private StatisticsResponse mapToResponse(DailyStatistic dailyStatistic, StatisticsDelta delta) {
+        StatisticsResponse response = mapToResponse(dailyStatistic);
+        
+        if (!delta.isEmpty()) {
+            applyToResponse(response, delta);
+        }
+        
+        LatencySketch approvalTimes = LatencySketch.decode(dailyStatistic.getApprovalTimeSketch()).plus(delta.approvalTimes());
+        response.setApprovalTimeP50(approvalTimes.percentile(50));
+        response.setApprovalTimeP90(approvalTimes.percentile(90));
+        response.setApprovalTimeP99(approvalTimes.percentile(99));
+        
+        LatencySketch rejectionTimes = LatencySketch.decode(dailyStatistic.getRejectionTimeSketch()).plus(delta.rejectionTimes());
+        response.setRejectionTimeP50(rejectionTimes.percentile(50));
+        response.setRejectionTimeP90(rejectionTimes.percentile(90));
+        response.setRejectionTimeP99(rejectionTimes.percentile(99));
+        
+        return response;
+    }
+    
     private StatisticsResponse mapToResponse(DailyStatistic dailyStatistic) {
         StatisticsResponse response = new StatisticsResponse();
         response.setDate(dailyStatistic.getDate());
@@ -0,0 +1,115 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.repository.ArchivedTransactionRepository;
+import com.paymentpanel.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves finalized transactions past a configurable age from the hot
+ * transactions table into transactions_archive.
+ *
+ * Each chunk is copied and deleted in its own database transaction, so a run
+ * can be stopped at any point and the hot table stays writable throughout.
+ * A run moves at most archive.max-chunks-per-run chunks and leaves the rest
+ * of a large backlog to the following runs, so it never holds a scheduler
+ * thread for long.
+ * Reads by id, internal ID and user fall through to the archive, see
+ * TransactionService.
+ */
+@Component
+public class TransactionArchiver {
+    
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiver.class);
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final boolean enabled;
+    
+    private final Duration minAge;
+    
+    private final int chunkSize;
+    
+    private final int maxChunksPerRun;
+    
+    public TransactionArchiver(PlatformTransactionManager transactionManager,
+                               @Value("${archive.enabled:true}") boolean enabled,
+                               @Value("${archive.min-age-days:7}") long minAgeDays,
+                               @Value("${archive.chunk-size:500}") int chunkSize,
+                               @Value("${archive.max-chunks-per-run:200}") int maxChunksPerRun) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.minAge = Duration.ofDays(minAgeDays);
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+    
+    @Scheduled(cron = "${archive.cron:0 45 3 * * *}")
+    public void archiveScheduled() {
+        if (!enabled) {
+            return;
+        }
+        
+        try {
+            archiveFinalizedBefore(LocalDateTime.now().minus(minAge));
+        } catch (RuntimeException e) {
+            log.error("Transaction archiving failed", e);
+        }
+    }
+    
+    // Archive APPROVED or REJECTED transactions created before the cutoff, up to the per-run cap; returns the number moved
+    public int archiveFinalizedBefore(LocalDateTime cutoff) {
+        int archived = 0;
+        int chunks = 0;
+        int moved;
+        
+        do {
+            moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            archived += moved;
+            chunks++;
+        } while (moved == chunkSize && chunks < maxChunksPerRun);
+        
+        if (archived > 0) {
+            log.info("Archived {} transactions created before {}", archived, cutoff);
+        }
+        if (moved == chunkSize) {
+            log.info("Archive run stopped after {} chunks, the rest is left for the next run", chunks);
+        }
+        return archived;
+    }
+    
+    // Helper methods
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<Long> ids = transactionRepository.findArchivableIdsForUpdate(cutoff, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        
+        int copied = archivedTransactionRepository.copyFromTransactions(ids, LocalDateTime.now());
+        int deleted = transactionRepository.deleteAllByIdIn(ids);
+        
+        // The rows are locked, so both statements see the same set
+        if (copied != ids.size() || deleted != ids.size()) {
+            throw new IllegalStateException("Archive chunk changed while moving it: " + ids.size() + " selected, "
+                    + copied + " copied, " + deleted + " deleted");
+        }
+        return ids.size();
+    }
+}
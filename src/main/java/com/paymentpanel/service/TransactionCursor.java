@@ -0,0 +1,35 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a keyset listing of transactions, ordered by (createdAt, id).
+ * Clients only ever see the opaque encoded form.
+ */
+public record TransactionCursor(LocalDateTime createdAt, Long id) {
+    
+    // Start positions that sort before/after every real row
+    static final TransactionCursor BEFORE_FIRST = new TransactionCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+    static final TransactionCursor AFTER_LAST = new TransactionCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+    
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new TransactionCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor: " + token);
+        }
+    }
+}
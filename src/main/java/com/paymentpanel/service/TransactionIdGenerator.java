@@ -0,0 +1,7 @@
+package com.paymentpanel.service;
+
+// Produces the internal IDs customers use to track their transactions; they must not be guessable
+public interface TransactionIdGenerator {
+    
+    String nextId();
+}
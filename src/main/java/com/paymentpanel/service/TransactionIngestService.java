@@ -0,0 +1,344 @@
+package com.paymentpanel.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.paymentpanel.dto.request.TransactionRequest;
+import com.paymentpanel.dto.response.TransactionIngestRowResult;
+import com.paymentpanel.dto.response.TransactionIngestSummary;
+import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.exception.ResourceNotFoundException;
+import com.paymentpanel.exception.ValidationException;
+import com.paymentpanel.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk creation of transactions from partner files.
+ *
+ * The upload is parsed as it arrives and handled in fixed-size batches: each
+ * batch is validated against the bank account snapshot, inserted in its own
+ * database transaction and reported before the next one is read. Memory use
+ * therefore depends on the batch size, not on the file size.
+ */
+@Service
+public class TransactionIngestService {
+    
+    private static final Logger log = LoggerFactory.getLogger(TransactionIngestService.class);
+    
+    private static final int MAX_CSV_RECORD_LENGTH = 10_000;
+    
+    private static final List<String> REQUIRED_COLUMNS = List.of("bankaccountid", "amount");
+    
+    @Autowired
+    private TransactionService transactionService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final int batchSize;
+    
+    public TransactionIngestService(@Value("${ingest.batch-size:500}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    public boolean isCsvFormat(String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return true;
+        }
+        
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return false;
+        }
+        
+        throw new ValidationException("Unsupported ingest format: " + format);
+    }
+    
+    // Check the format and the CSV header before anything is written back, so those errors can still be a 400
+    public Upload open(String format, InputStream inputStream) throws IOException {
+        boolean csv = isCsvFormat(format);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), 64 * 1024);
+        skipByteOrderMark(reader);
+        return new Upload(csv ? csvRows(reader) : ndjsonRows(reader));
+    }
+    
+    // Process the upload and write one NDJSON result line per row, followed by a summary line
+    public TransactionIngestSummary ingest(Upload upload, OutputStream outputStream) throws IOException {
+        RowSource rows = upload.rows;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        
+        TransactionIngestSummary summary = new TransactionIngestSummary();
+        List<IngestRow> batch = new ArrayList<>(batchSize);
+        
+        try {
+            IngestRow row;
+            while ((row = rows.next()) != null) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    processBatch(batch, writer, summary);
+                    batch.clear();
+                }
+            }
+        } catch (ValidationException e) {
+            // The rest of the file cannot be parsed; rows read so far are still processed
+            summary.setError(e.getMessage());
+        }
+        
+        if (!batch.isEmpty()) {
+            processBatch(batch, writer, summary);
+        }
+        
+        writer.write(objectMapper.writeValueAsString(Map.of("summary", summary)));
+        writer.write('\n');
+        writer.flush();
+        
+        log.info("Ingested {} rows: {} created, {} failed", summary.getTotalRows(),
+                summary.getCreatedCount(), summary.getFailedCount());
+        return summary;
+    }
+    
+    // Helper methods
+    private void processBatch(List<IngestRow> batch, Writer writer, TransactionIngestSummary summary) throws IOException {
+        validate(batch);
+        
+        List<IngestRow> valid = batch.stream()
+                .filter(row -> row.error == null)
+                .collect(Collectors.toList());
+        
+        if (!valid.isEmpty()) {
+            try {
+                List<TransactionResponse> created = transactionService.createTransactions(valid.stream()
+                        .map(row -> row.request)
+                        .collect(Collectors.toList()));
+                
+                for (int i = 0; i < valid.size(); i++) {
+                    valid.get(i).created = created.get(i);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Ingest batch of {} rows failed", valid.size(), e);
+                valid.forEach(row -> row.error = "Batch could not be saved: " + e.getMessage());
+            }
+        }
+        
+        for (IngestRow row : batch) {
+            TransactionIngestRowResult result = row.created != null
+                    ? new TransactionIngestRowResult(row.number, true, row.created.getId(), row.created.getInternalId(), null)
+                    : new TransactionIngestRowResult(row.number, false, null, null, row.error);
+            
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.write('\n');
+            
+            summary.setTotalRows(summary.getTotalRows() + 1);
+            if (result.isSuccess()) {
+                summary.setCreatedCount(summary.getCreatedCount() + 1);
+            } else {
+                summary.setFailedCount(summary.getFailedCount() + 1);
+            }
+        }
+        
+        // Let the client see progress batch by batch
+        writer.flush();
+    }
+    
+    private void validate(List<IngestRow> batch) {
+        Set<Long> userIds = new HashSet<>();
+        
+        for (IngestRow row : batch) {
+            if (row.error != null) {
+                continue;
+            }
+            
+            row.error = missingFieldError(row.request);
+            if (row.error != null) {
+                continue;
+            }
+            
+            try {
+                transactionService.validateNewTransaction(row.request);
+            } catch (ValidationException | ResourceNotFoundException e) {
+                row.error = e.getMessage();
+                continue;
+            }
+            
+            if (row.request.getUserId() != null) {
+                userIds.add(row.request.getUserId());
+            }
+        }
+        
+        if (userIds.isEmpty()) {
+            return;
+        }
+        
+        // One query per batch for the referenced users
+        Set<Long> existingUserIds = new HashSet<>(userRepository.findExistingIds(userIds));
+        for (IngestRow row : batch) {
+            if (row.error == null && row.request.getUserId() != null && !existingUserIds.contains(row.request.getUserId())) {
+                row.error = "User not found with id: " + row.request.getUserId();
+            }
+        }
+    }
+    
+    // The checks declared on TransactionRequest, which nothing else enforces for file rows
+    private static String missingFieldError(TransactionRequest request) {
+        if (request.getBankAccountId() == null) {
+            return "Bank account ID is required";
+        }
+        if (request.getAmount() == null) {
+            return "Amount is required";
+        }
+        if (request.getAmount().compareTo(new BigDecimal("0.01")) < 0) {
+            return "Amount must be greater than 0";
+        }
+        return null;
+    }
+    
+    private RowSource csvRows(BufferedReader reader) throws IOException {
+        CsvRecordReader records = new CsvRecordReader(reader, MAX_CSV_RECORD_LENGTH);
+        
+        List<String> header = records.next();
+        if (header == null) {
+            throw new ValidationException("The file is empty");
+        }
+        
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new ValidationException("Missing CSV column: " + column);
+            }
+        }
+        
+        long[] number = {0};
+        return () -> {
+            List<String> record;
+            do {
+                record = records.next();
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank());
+            
+            IngestRow row = new IngestRow(++number[0]);
+            try {
+                TransactionRequest request = new TransactionRequest();
+                request.setBankAccountId(parseLong(value(record, columns, "bankaccountid")));
+                request.setUserId(parseLong(value(record, columns, "userid")));
+                String amount = value(record, columns, "amount");
+                request.setAmount(amount != null ? new BigDecimal(amount) : null);
+                request.setDescription(value(record, columns, "description"));
+                row.request = request;
+            } catch (NumberFormatException e) {
+                row.error = "Invalid number in row";
+            }
+            return row;
+        };
+    }
+    
+    private RowSource ndjsonRows(BufferedReader reader) {
+        ObjectReader requestReader = objectMapper.readerFor(TransactionRequest.class);
+        long[] number = {0};
+        
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            
+            IngestRow row = new IngestRow(++number[0]);
+            try {
+                TransactionRequest request = requestReader.readValue(line);
+                if (request == null) {
+                    row.error = "Row is not a JSON object";
+                    return row;
+                }
+                // Partner files don't carry client details
+                request.setIpAddress(null);
+                request.setUserAgent(null);
+                row.request = request;
+            } catch (JsonProcessingException e) {
+                row.error = "Invalid JSON: " + e.getOriginalMessage();
+            }
+            return row;
+        };
+    }
+    
+    // Excel saves UTF-8 files with a BOM, which would otherwise stick to the first header cell
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+    
+    private static String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static Long parseLong(String value) {
+        return value != null ? Long.valueOf(value) : null;
+    }
+    
+    /**
+     * An upload whose format and header have been accepted.
+     */
+    public static final class Upload {
+        private final RowSource rows;
+        
+        private Upload(RowSource rows) {
+            this.rows = rows;
+        }
+    }
+    
+    @FunctionalInterface
+    private interface RowSource {
+        IngestRow next() throws IOException;
+    }
+    
+    private static final class IngestRow {
+        private final long number;
+        private TransactionRequest request;
+        private String error;
+        private TransactionResponse created;
+        
+        private IngestRow(long number) {
+            this.number = number;
+        }
+    }
+}
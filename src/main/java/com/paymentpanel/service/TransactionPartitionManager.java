@@ -0,0 +1,204 @@
+package com.paymentpanel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of the transactions table in step with the calendar.
+ *
+ * Partitions are created a few months ahead, so an insert never finds its month
+ * missing, and partitions older than the retention period are detached. A detached
+ * partition is left in place as an ordinary table named transactions_YYYY_MM, to
+ * be archived or dropped separately. The archiver only moves finalized rows, so
+ * a partition that still holds PENDING transactions is kept attached, and
+ * flagged in the log, until they are approved or rejected. Runs at startup and then daily; a no-op when
+ * transactions is not a partitioned PostgreSQL table (e.g. on H2 in tests).
+ */
+@Component
+public class TransactionPartitionManager {
+    
+    private static final Logger log = LoggerFactory.getLogger(TransactionPartitionManager.class);
+    
+    private static final String PARENT_TABLE = "transactions";
+    
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_(\\d{4})_(\\d{2})");
+    
+    // Arbitrary key of the advisory lock that keeps nodes from running maintenance at the same time
+    private static final long MAINTENANCE_LOCK_KEY = 0x7472616E73L;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final int monthsAhead;
+    
+    private final int retentionMonths;
+    
+    public TransactionPartitionManager(JdbcTemplate jdbcTemplate,
+                                       @Value("${transactions.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${transactions.partitions.retention-months:24}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+    
+    @Scheduled(cron = "${transactions.partitions.cron:0 15 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!isPartitioned(connection)) {
+                    log.debug("{} is not a partitioned table, skipping partition maintenance", PARENT_TABLE);
+                    return null;
+                }
+                
+                if (!tryLock(connection)) {
+                    log.debug("Partition maintenance is running on another node");
+                    return null;
+                }
+                
+                try {
+                    maintain(connection, YearMonth.now());
+                } finally {
+                    unlock(connection);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Transaction partition maintenance failed", e);
+        }
+    }
+    
+    // Helper methods
+    private void maintain(Connection connection, YearMonth currentMonth) throws SQLException {
+        List<Partition> partitions = attachedPartitions(connection);
+        
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            if (partitions.stream().noneMatch(partition -> month.equals(partition.month()))) {
+                createPartition(connection, month);
+            }
+        }
+        
+        if (retentionMonths <= 0) {
+            return;
+        }
+        
+        YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+        for (Partition partition : partitions) {
+            if (partition.detachPending()) {
+                // A concurrent detach was interrupted; it can only be finished, not retried
+                execute(connection, "ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition.name() + " FINALIZE");
+                log.info("Finished detaching transaction partition {}", partition.name());
+            } else if (partition.month() != null && partition.month().isBefore(oldestKept)) {
+                // Detaching would take those rows out of every lookup, the archive fallback and statistics rebuilds
+                long unfinalized = countUnfinalized(connection, partition.name());
+                if (unfinalized > 0) {
+                    log.warn("Keeping transaction partition {} attached, it still holds {} transactions that are not "
+                            + "approved or rejected", partition.name(), unfinalized);
+                    continue;
+                }
+                // CONCURRENTLY keeps inserts and reads on the other partitions running while detaching
+                execute(connection, "ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition.name() + " CONCURRENTLY");
+                log.info("Detached transaction partition {}", partition.name());
+            }
+        }
+    }
+    
+    private void createPartition(Connection connection, YearMonth month) throws SQLException {
+        String name = PARENT_TABLE + "_" + month.format(PARTITION_SUFFIX);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        
+        execute(connection, "CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + PARENT_TABLE
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        log.info("Created transaction partition {} for [{}, {})", name, from, to);
+    }
+    
+    private List<Partition> attachedPartitions(Connection connection) throws SQLException {
+        List<Partition> partitions = new ArrayList<>();
+        
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT c.relname, i.inhdetachpending FROM pg_inherits i "
+                     + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = '" + PARENT_TABLE + "'::regclass")) {
+            while (resultSet.next()) {
+                String name = resultSet.getString(1);
+                Matcher matcher = PARTITION_NAME.matcher(name);
+                // Partitions not named by this class are never detached
+                YearMonth month = matcher.matches()
+                        ? YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+                        : null;
+                partitions.add(new Partition(name, month, resultSet.getBoolean(2)));
+            }
+        }
+        
+        return partitions;
+    }
+    
+    private static long countUnfinalized(Connection connection, String partitionName) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM " + partitionName
+                     + " WHERE status IS NULL OR status NOT IN ('APPROVED', 'REJECTED')")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+    
+    private static boolean isPartitioned(Connection connection) throws SQLException {
+        if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return false;
+        }
+        
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('" + PARENT_TABLE + "')")) {
+            return resultSet.next();
+        }
+    }
+    
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pg_try_advisory_lock(" + MAINTENANCE_LOCK_KEY + ")")) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+    
+    private static void unlock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_advisory_unlock(" + MAINTENANCE_LOCK_KEY + ")");
+        }
+    }
+    
+    // DETACH ... CONCURRENTLY cannot run inside a transaction block, so every statement autocommits
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+    
+    private record Partition(String name, YearMonth month, boolean detachPending) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles transaction creation per client IP, before the request touches
+ * the database, see {@link RateLimiter}. There is no per-user limit: the
+ * user id comes from the unauthenticated request body, so any client could
+ * drain another user's bucket.
+ *
+ * The address is the servlet remote address. Behind a proxy it is only the
+ * client's own address when forwarded headers are resolved
+ * ({@code server.forward-headers-strategy}); otherwise every client shares
+ * the proxy's bucket.
+ */
+@Component
+public class TransactionRateLimiter {
+    
+    private final boolean enabled;
+    
+    private final RateLimiter<String> byIpAddress;
+    
+    public TransactionRateLimiter(@Value("${rate-limit.enabled:true}") boolean enabled,
+                                  @Value("${rate-limit.ip.capacity:20}") int ipCapacity,
+                                  @Value("${rate-limit.ip.tokens-per-second:5}") double ipTokensPerSecond,
+                                  @Value("${rate-limit.max-keys:100000}") long maxKeys) {
+        this.enabled = enabled;
+        this.byIpAddress = new RateLimiter<>(ipCapacity, ipTokensPerSecond, maxKeys);
+    }
+    
+    // Take a token for the address; answered with 429 when it is out
+    public void checkCreate(String ipAddress) {
+        if (!enabled || ipAddress == null) {
+            return;
+        }
+        
+        rejectIfWaiting(byIpAddress.tryAcquire(ipAddress), "Too many transactions from this address");
+    }
+    
+    // Helper methods
+    private static void rejectIfWaiting(long waitNanos, String message) {
+        if (waitNanos > 0) {
+            // Retry-After is in whole seconds, rounded up so a retry never arrives early
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            throw new TooManyRequestsException(message + ", retry in " + retryAfterSeconds + "s", retryAfterSeconds);
+        }
+    }
+}
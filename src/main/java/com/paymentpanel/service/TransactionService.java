@@ -2,34 +2,89 @@ package com.paymentpanel.service;
 
 import com.paymentpanel.exception.ResourceNotFoundException;
 import com.paymentpanel.exception.ValidationException;
-import com.paymentpanel.model.BankAccount;
 import com.paymentpanel.model.Transaction;
 import com.paymentpanel.model.User;
+import com.paymentpanel.repository.ArchivedTransactionRepository;
 import com.paymentpanel.repository.BankAccountRepository;
 import com.paymentpanel.repository.TransactionRepository;
+import com.paymentpanel.repository.TransactionView;
 import com.paymentpanel.repository.UserRepository;
 import com.paymentpanel.dto.request.TransactionRequest;
+import com.paymentpanel.dto.response.BankAccountResponse;
 import com.paymentpanel.dto.response.TransactionResponse;
 import com.paymentpanel.dto.request.PaymentConfirmationRequest;
+import com.paymentpanel.dto.request.BulkTransactionStatusRequest;
+import com.paymentpanel.dto.response.BulkTransactionStatusResponse;
+import com.paymentpanel.dto.response.CursorPageResponse;
+import com.paymentpanel.service.StatisticsAccumulator.StatisticsDelta;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
     
+    // Upper bound for a single bulk status change
+    private static final int MAX_BULK_SIZE = 5000;
+    
+    // Keeps IN lists well below driver parameter limits
+    private static final int BULK_CHUNK_SIZE = 500;
+    
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+    
+    // Columns the admin list may sort on; the sort property is otherwise copied into the query's ORDER BY
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of(
+            "id", "internalId", "amount", "status", "createdAt", "updatedAt", "approvedAt", "rejectedAt", "paymentDate");
+    
+    private static final Comparator<TransactionView> CREATION_ORDER =
+            Comparator.comparing(TransactionView::createdAt).thenComparing(TransactionView::id);
+    
+    private static final String[] EXPORT_COLUMNS = {
+            "id", "internalId", "userId", "userName", "bankAccountId", "bankName", "accountOwner", "iban",
+            "amount", "description", "status", "createdAt", "approvedAt", "approvedBy", "rejectedAt", "rejectedBy",
+            "note", "processingTimeSeconds", "paymentConfirmed", "paymentDate"
+    };
+    
     @Autowired
     private TransactionRepository transactionRepository;
     
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    
     @Autowired
     private BankAccountRepository bankAccountRepository;
     
@@ -39,25 +94,37 @@ public class TransactionService {
     @Autowired
     private StatisticsService statisticsService;
     
+    @Autowired
+    private BankAccountService bankAccountService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private TransactionTrackingCache transactionTrackingCache;
+    
+    @Autowired
+    private TransactionStatusStream transactionStatusStream;
+    
+    @Autowired
+    private PendingQueueFeed pendingQueueFeed;
+    
     // Create a new transaction
     @Transactional
     public TransactionResponse createTransaction(TransactionRequest request) {
-        // First get the bank account since it's always required
-        BankAccount bankAccount = bankAccountRepository.findById(request.getBankAccountId())
-                .orElseThrow(() -> new ResourceNotFoundException("Bank account not found with id: " + request.getBankAccountId()));
-        
-        if (!"ACTIVE".equals(bankAccount.getStatus())) {
-            throw new ValidationException("Bank account is not active");
-        }
-        
-        // Check bank-specific limits if set
-        if (bankAccount.getMinLimit() != null && request.getAmount().compareTo(bankAccount.getMinLimit()) < 0) {
-            throw new ValidationException("Amount is below the bank minimum limit: " + bankAccount.getMinLimit());
-        }
-        
-        if (bankAccount.getMaxLimit() != null && request.getAmount().compareTo(bankAccount.getMaxLimit()) > 0) {
-            throw new ValidationException("Amount exceeds the bank maximum limit: " + bankAccount.getMaxLimit());
-        }
+        return createTransaction(request, null);
+    }
+    
+    // Create a new transaction, storing the response under the idempotency key in the same database transaction
+    @Transactional
+    public TransactionResponse createTransaction(TransactionRequest request, String idempotencyKey) {
+        BankAccountResponse bankAccount = validateNewTransaction(request);
         
         // Find or create user if user ID is provided
         User user = null;
@@ -68,7 +135,7 @@ public class TransactionService {
         
         // Create transaction
         Transaction transaction = new Transaction();
-        transaction.setBankAccount(bankAccount);
+        transaction.setBankAccount(bankAccountRepository.getReferenceById(bankAccount.getId()));
         transaction.setUser(user);
         transaction.setAmount(request.getAmount());
         transaction.setDescription(request.getDescription());
@@ -77,59 +144,285 @@ public class TransactionService {
         transaction.setUserAgent(request.getUserAgent());
         
         // Generate a unique internal ID
-        transaction.setInternalId(generateUniqueTransactionId());
+        transaction.setInternalId(transactionIdGenerator.nextId());
         
         Transaction savedTransaction = transactionRepository.save(transaction);
+        flushNewTransactions();
         
         // Update daily statistics
         statisticsService.updateDailyStatisticForNewTransaction(savedTransaction);
         
-        return mapToResponse(savedTransaction);
+        TransactionResponse response = mapToResponse(savedTransaction, bankAccount);
+        transactionTrackingCache.refreshAfterCommit(response);
+        pendingQueueFeed.transactionAdded(response);
+        
+        if (idempotencyKey != null) {
+            idempotencyService.saveResponse(idempotencyKey, request, response);
+        }
+        
+        return response;
     }
     
-    // Get transaction by ID
+    // Check a new transaction against its bank account; uses the in-memory snapshot instead of the database
+    public BankAccountResponse validateNewTransaction(TransactionRequest request) {
+        BankAccountResponse bankAccount = bankAccountService.getCachedBankAccount(request.getBankAccountId());
+        
+        if (!"ACTIVE".equals(bankAccount.getStatus())) {
+            throw new ValidationException("Bank account is not active");
+        }
+        
+        // Check bank-specific limits if set
+        if (bankAccount.getMinLimit() != null && request.getAmount().compareTo(bankAccount.getMinLimit()) < 0) {
+            throw new ValidationException("Amount is below the bank minimum limit: " + bankAccount.getMinLimit());
+        }
+        
+        if (bankAccount.getMaxLimit() != null && request.getAmount().compareTo(bankAccount.getMaxLimit()) > 0) {
+            throw new ValidationException("Amount exceeds the bank maximum limit: " + bankAccount.getMaxLimit());
+        }
+        
+        return bankAccount;
+    }
+    
+    // Insert already validated transactions in one database transaction, as JDBC batches
+    @Transactional
+    public List<TransactionResponse> createTransactions(List<TransactionRequest> requests) {
+        Map<Long, BankAccountResponse> bankAccounts = new HashMap<>();
+        requests.forEach(request -> bankAccounts.computeIfAbsent(request.getBankAccountId(),
+                bankAccountService::getCachedBankAccount));
+        
+        // One lookup for every user referenced by the batch
+        List<Long> userIds = requests.stream()
+                .map(TransactionRequest::getUserId)
+                .filter(userId -> userId != null)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        for (TransactionRequest request : requests) {
+            User user = null;
+            if (request.getUserId() != null) {
+                user = users.get(request.getUserId());
+                if (user == null) {
+                    throw new ResourceNotFoundException("User not found with id: " + request.getUserId());
+                }
+            }
+            
+            Transaction transaction = new Transaction();
+            transaction.setBankAccount(bankAccountRepository.getReferenceById(request.getBankAccountId()));
+            transaction.setUser(user);
+            transaction.setAmount(request.getAmount());
+            transaction.setDescription(request.getDescription());
+            transaction.setStatus("PENDING");
+            transaction.setIpAddress(request.getIpAddress());
+            transaction.setUserAgent(request.getUserAgent());
+            transaction.setInternalId(transactionIdGenerator.nextId());
+            transactions.add(transaction);
+        }
+        
+        List<Transaction> savedTransactions = transactionRepository.saveAll(transactions);
+        flushNewTransactions();
+        
+        // One statistics delta per date for the whole batch
+        Map<LocalDate, StatisticsDelta> statisticsDeltas = new HashMap<>();
+        List<TransactionResponse> responses = new ArrayList<>(savedTransactions.size());
+        for (int i = 0; i < savedTransactions.size(); i++) {
+            Transaction transaction = savedTransactions.get(i);
+            statisticsDeltas.merge(transaction.getCreatedAt().toLocalDate(),
+                    StatisticsDelta.created(transaction.getAmount()), StatisticsDelta::plus);
+            
+            TransactionResponse response = mapToResponse(transaction, bankAccounts.get(requests.get(i).getBankAccountId()));
+            pendingQueueFeed.transactionAdded(response);
+            responses.add(response);
+        }
+        statisticsService.updateStatisticsForBulkChange(statisticsDeltas);
+        
+        return responses;
+    }
+    
+    // The snapshot can list an account that another node deleted since its last refresh; the foreign key catches it
+    private void flushNewTransactions() {
+        try {
+            transactionRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase().contains("bank_account_id")) {
+                throw new ValidationException("Bank account is not available");
+            }
+            throw e;
+        }
+    }
+    
+    // Get transaction by ID, from the archive if it has been archived
     public TransactionResponse getTransactionById(Long id) {
-        Transaction transaction = transactionRepository.findById(id)
+        TransactionView transaction = transactionRepository.findViewById(id)
+                .or(() -> archivedTransactionRepository.findViewById(id))
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
         
         return mapToResponse(transaction);
     }
     
-    // Get transaction by internal ID
-    public TransactionResponse getTransactionByInternalId(String internalId) {
-        Transaction transaction = transactionRepository.findByInternalId(internalId)
+    // Current state of a transaction straight from the database, bypassing the tracking cache
+    public TransactionResponse loadTransactionByInternalId(String internalId) {
+        TransactionView transaction = transactionRepository.findViewByInternalId(internalId)
+                .or(() -> archivedTransactionRepository.findViewByInternalId(internalId))
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with internal id: " + internalId));
         
         return mapToResponse(transaction);
     }
     
+    // Get transaction by internal ID
+    public TransactionResponse getTransactionByInternalId(String internalId) {
+        // Customers poll this while waiting for approval, so it is served from the tracking cache
+        return transactionTrackingCache.get(internalId, this::loadTransactionByInternalId);
+    }
+    
     // Get all transactions with pagination
+    @Transactional(readOnly = true)
     public Page<TransactionResponse> getAllTransactions(Pageable pageable) {
-        Page<Transaction> transactions = transactionRepository.findAll(pageable);
+        checkSortable(pageable);
+        Page<TransactionView> transactions = transactionRepository.findAllViews(pageable);
         
         return transactions.map(this::mapToResponse);
     }
     
     // Get transactions by status with pagination
+    @Transactional(readOnly = true)
     public Page<TransactionResponse> getTransactionsByStatus(String status, Pageable pageable) {
-        Page<Transaction> transactions = transactionRepository.findByStatus(status, pageable);
+        checkSortable(pageable);
+        Page<TransactionView> transactions = transactionRepository.findViewsByStatus(status, pageable);
         
         return transactions.map(this::mapToResponse);
     }
     
+    // Get transactions with keyset pagination, optionally filtered by status
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionResponse> getTransactionsByCursor(String status, String cursor, int size,
+                                                                          boolean ascending, boolean includeApproximateTotal) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new ValidationException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        
+        TransactionCursor position = cursor != null && !cursor.isEmpty()
+                ? TransactionCursor.decode(cursor)
+                : (ascending ? TransactionCursor.BEFORE_FIRST : TransactionCursor.AFTER_LAST);
+        
+        // Fetch one extra row to learn whether there is a next page without counting
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<TransactionView> transactions;
+        if (status == null) {
+            transactions = ascending
+                    ? transactionRepository.findPageAfter(position.createdAt(), position.id(), limit)
+                    : transactionRepository.findPageBefore(position.createdAt(), position.id(), limit);
+        } else {
+            transactions = ascending
+                    ? transactionRepository.findPageByStatusAfter(status, position.createdAt(), position.id(), limit)
+                    : transactionRepository.findPageByStatusBefore(status, position.createdAt(), position.id(), limit);
+        }
+        
+        boolean hasNext = transactions.size() > size;
+        if (hasNext) {
+            transactions = transactions.subList(0, size);
+        }
+        
+        CursorPageResponse<TransactionResponse> response = new CursorPageResponse<>();
+        response.setContent(transactions.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList()));
+        response.setSize(transactions.size());
+        response.setHasNext(hasNext);
+        
+        if (hasNext) {
+            TransactionView last = transactions.get(transactions.size() - 1);
+            response.setNextCursor(new TransactionCursor(last.createdAt(), last.id()).encode());
+        }
+        
+        if (includeApproximateTotal) {
+            response.setApproximateTotal(statisticsService.getApproximateTransactionCount(status));
+        }
+        
+        return response;
+    }
+    
     // Get transactions by user ID
     public List<TransactionResponse> getTransactionsByUserId(Long userId) {
-        List<Transaction> transactions = transactionRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        // Keyed by id: a transaction archived between the two queries is returned once
+        Map<Long, TransactionView> transactions = new LinkedHashMap<>();
+        transactionRepository.findViewsByUserIdOrderByCreatedAtDesc(userId)
+                .forEach(transaction -> transactions.put(transaction.id(), transaction));
+        archivedTransactionRepository.findViewsByUserIdOrderByCreatedAtDesc(userId)
+                .forEach(transaction -> transactions.putIfAbsent(transaction.id(), transaction));
         
-        return transactions.stream()
+        return transactions.values().stream()
+                .sorted(CREATION_ORDER.reversed())
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
     
+    // Stream transactions created in [startDate, endDate] to the output as CSV or NDJSON, archived ones included.
+    // Repeatable read gives both queries the same snapshot, so a concurrent archive run can't duplicate or drop rows
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportTransactions(LocalDate startDate, LocalDate endDate, String status, Long bankAccountId,
+                                   String format, OutputStream outputStream) throws IOException {
+        if (endDate.isBefore(startDate)) {
+            throw new ValidationException("End date must not be before start date");
+        }
+        
+        boolean csv = isCsvExport(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        
+        if (csv) {
+            writer.write(String.join(",", EXPORT_COLUMNS));
+            writer.write('\n');
+        }
+        
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+        
+        try (Stream<TransactionView> hot = transactionRepository.streamViewsForExport(from, to, status, bankAccountId);
+             Stream<TransactionView> archived = archivedTransactionRepository.streamViewsForExport(from, to, status, bankAccountId)) {
+            
+            Iterator<TransactionView> transactions = mergeInCreationOrder(hot.iterator(), archived.iterator());
+            
+            int written = 0;
+            for (TransactionView transaction : (Iterable<TransactionView>) () -> transactions) {
+                TransactionResponse response = mapToResponse(transaction);
+                
+                if (csv) {
+                    writeCsvRow(writer, response);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(response));
+                    writer.write('\n');
+                }
+                
+                // Push each fetch batch to the client instead of buffering the whole export
+                if (++written % TransactionRepository.EXPORT_FETCH_SIZE == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        
+        writer.flush();
+    }
+    
+    public boolean isCsvExport(String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return true;
+        }
+        
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return false;
+        }
+        
+        throw new ValidationException("Unsupported export format: " + format);
+    }
+    
     // Approve transaction
     @Transactional
     public TransactionResponse approveTransaction(Long id, String approvedBy, String note) {
-        Transaction transaction = transactionRepository.findById(id)
+        Transaction transaction = transactionRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
         
         if (!"PENDING".equals(transaction.getStatus())) {
@@ -149,13 +442,18 @@ public class TransactionService {
         // Update daily statistics
         statisticsService.updateDailyStatisticForApprovedTransaction(updatedTransaction);
         
-        return mapToResponse(updatedTransaction);
+        TransactionResponse response = mapToResponse(updatedTransaction);
+        transactionTrackingCache.refreshAfterCommit(response);
+        transactionStatusStream.publishAfterCommit(response);
+        pendingQueueFeed.transactionsFinalized(List.of(id), "APPROVED");
+        
+        return response;
     }
     
     // Reject transaction
     @Transactional
     public TransactionResponse rejectTransaction(Long id, String rejectedBy, String note) {
-        Transaction transaction = transactionRepository.findById(id)
+        Transaction transaction = transactionRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
         
         if (!"PENDING".equals(transaction.getStatus())) {
@@ -175,9 +473,26 @@ public class TransactionService {
         // Update daily statistics
         statisticsService.updateDailyStatisticForRejectedTransaction(updatedTransaction);
         
-        return mapToResponse(updatedTransaction);
+        TransactionResponse response = mapToResponse(updatedTransaction);
+        transactionTrackingCache.refreshAfterCommit(response);
+        transactionStatusStream.publishAfterCommit(response);
+        pendingQueueFeed.transactionsFinalized(List.of(id), "REJECTED");
+        
+        return response;
     }
 
+    // Approve many transactions at once
+    @Transactional
+    public BulkTransactionStatusResponse bulkApproveTransactions(BulkTransactionStatusRequest request) {
+        return bulkUpdateStatus(request, "APPROVED");
+    }
+    
+    // Reject many transactions at once
+    @Transactional
+    public BulkTransactionStatusResponse bulkRejectTransactions(BulkTransactionStatusRequest request) {
+        return bulkUpdateStatus(request, "REJECTED");
+    }
+    
     @Transactional
     public TransactionResponse confirmPaymentByUser(Long id, PaymentConfirmationRequest request) {
         Transaction transaction = transactionRepository.findById(id)
@@ -186,15 +501,208 @@ public class TransactionService {
         transaction.setPaymentConfirmed(request.getPaymentConfirmed());
         transaction.setPaymentDate(request.getPaymentDate());
         Transaction updatedTransaction = transactionRepository.save(transaction);
-        return mapToResponse(updatedTransaction);
+        TransactionResponse response = mapToResponse(updatedTransaction);
+        transactionTrackingCache.refreshAfterCommit(response);
+        transactionStatusStream.publishAfterCommit(response);
+        
+        return response;
     }
     
     // Helper methods
-    private String generateUniqueTransactionId() {
-        return UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+    private static void checkSortable(Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new ValidationException("Cannot sort by: " + order.getProperty());
+            }
+        }
+    }
+    
+    // Merge two iterators that are each sorted in creation order
+    private static Iterator<TransactionView> mergeInCreationOrder(Iterator<TransactionView> first,
+                                                                  Iterator<TransactionView> second) {
+        return new Iterator<>() {
+            private TransactionView nextFirst = first.hasNext() ? first.next() : null;
+            private TransactionView nextSecond = second.hasNext() ? second.next() : null;
+            
+            @Override
+            public boolean hasNext() {
+                return nextFirst != null || nextSecond != null;
+            }
+            
+            @Override
+            public TransactionView next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                
+                TransactionView next;
+                if (nextSecond == null || (nextFirst != null && CREATION_ORDER.compare(nextFirst, nextSecond) <= 0)) {
+                    next = nextFirst;
+                    nextFirst = first.hasNext() ? first.next() : null;
+                } else {
+                    next = nextSecond;
+                    nextSecond = second.hasNext() ? second.next() : null;
+                }
+                return next;
+            }
+        };
+    }
+    
+    private BulkTransactionStatusResponse bulkUpdateStatus(BulkTransactionStatusRequest request, String newStatus) {
+        Collection<Long> ids = resolveBulkIds(request);
+        String note = request.getNote() != null && !request.getNote().trim().isEmpty() ? request.getNote() : null;
+        LocalDateTime actionAt = LocalDateTime.now();
+        
+        Map<Long, BulkTransactionStatusResponse.Result> results = new LinkedHashMap<>();
+        Map<LocalDate, StatisticsDelta> statisticsDeltas = new HashMap<>();
+        List<Long> updatableIds = new ArrayList<>();
+        List<String> updatedInternalIds = new ArrayList<>();
+        
+        for (List<Long> chunk : chunk(ids, BULK_CHUNK_SIZE)) {
+            Map<Long, Transaction> transactions = transactionRepository.findAllByIdInForUpdate(chunk).stream()
+                    .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+            
+            for (Long id : chunk) {
+                Transaction transaction = transactions.get(id);
+                
+                if (transaction == null) {
+                    results.put(id, new BulkTransactionStatusResponse.Result(id, false, null,
+                            "Transaction not found with id: " + id));
+                } else if (!"PENDING".equals(transaction.getStatus())) {
+                    results.put(id, new BulkTransactionStatusResponse.Result(id, false, transaction.getStatus(),
+                            "Transaction is not in PENDING status"));
+                } else {
+                    results.put(id, new BulkTransactionStatusResponse.Result(id, true, newStatus, null));
+                    updatableIds.add(id);
+                    updatedInternalIds.add(transaction.getInternalId());
+                    statisticsDeltas.merge(transaction.getCreatedAt().toLocalDate(),
+                            statusChangeDelta(transaction, newStatus, actionAt), StatisticsDelta::plus);
+                }
+            }
+        }
+        
+        for (List<Long> chunk : chunk(updatableIds, BULK_CHUNK_SIZE)) {
+            if ("APPROVED".equals(newStatus)) {
+                transactionRepository.approveAll(chunk, actionAt, request.getActionBy(), note);
+            } else {
+                transactionRepository.rejectAll(chunk, actionAt, request.getActionBy(), note);
+            }
+        }
+        
+        // One statistics delta per date instead of one update per transaction
+        statisticsService.updateStatisticsForBulkChange(statisticsDeltas);
+        transactionTrackingCache.invalidateAfterCommit(updatedInternalIds);
+        transactionStatusStream.publishAfterCommit(updatedInternalIds, this::loadTrackedResponses);
+        pendingQueueFeed.transactionsFinalized(updatableIds, newStatus);
+        
+        BulkTransactionStatusResponse response = new BulkTransactionStatusResponse();
+        response.setRequestedCount(results.size());
+        response.setSuccessCount(updatableIds.size());
+        response.setFailureCount(results.size() - updatableIds.size());
+        response.setResults(new ArrayList<>(results.values()));
+        
+        return response;
+    }
+    
+    private List<TransactionResponse> loadTrackedResponses(Collection<String> internalIds) {
+        return transactionRepository.findViewsByInternalIdIn(internalIds).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
     }
     
-    private TransactionResponse mapToResponse(Transaction transaction) {
+    private Collection<Long> resolveBulkIds(BulkTransactionStatusRequest request) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            // Drop duplicates, keep the caller's order
+            return new LinkedHashSet<>(request.getIds());
+        }
+        
+        if (request.getBankAccountId() == null && request.getCreatedFrom() == null && request.getCreatedTo() == null) {
+            throw new ValidationException("Either transaction ids or a filter must be provided");
+        }
+        
+        return transactionRepository.findPendingIds(request.getBankAccountId(), request.getCreatedFrom(),
+                request.getCreatedTo(), PageRequest.of(0, MAX_BULK_SIZE));
+    }
+    
+    private StatisticsDelta statusChangeDelta(Transaction transaction, String newStatus, LocalDateTime actionAt) {
+        long processingTimeSeconds = Duration.between(transaction.getCreatedAt(), actionAt).getSeconds();
+        if ("APPROVED".equals(newStatus)) {
+            return StatisticsDelta.approved(processingTimeSeconds);
+        }
+        
+        return StatisticsDelta.rejected(processingTimeSeconds);
+    }
+    
+    private static <T> List<List<T>> chunk(Collection<T> values, int size) {
+        List<T> list = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        
+        for (int i = 0; i < list.size(); i += size) {
+            chunks.add(list.subList(i, Math.min(i + size, list.size())));
+        }
+        
+        return chunks;
+    }
+    
+    private void writeCsvRow(Writer writer, TransactionResponse response) throws IOException {
+        Object[] values = {
+                response.getId(), response.getInternalId(), response.getUserId(), response.getUserName(),
+                response.getBankAccountId(), response.getBankName(), response.getAccountOwner(), response.getIban(),
+                response.getAmount(), response.getDescription(), response.getStatus(), response.getCreatedAt(),
+                response.getApprovedAt(), response.getApprovedBy(), response.getRejectedAt(), response.getRejectedBy(),
+                response.getNote(), response.getProcessingTimeSeconds(), response.getPaymentConfirmed(),
+                response.getPaymentDate()
+        };
+        
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvValue(values[i]));
+        }
+        writer.write('\n');
+    }
+    
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        
+        String text = value instanceof BigDecimal amount ? amount.toPlainString() : value.toString();
+        // Free text such as descriptions and notes must not be read as a formula when the file is opened in a spreadsheet
+        if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+    
+    // Package-private so TransactionMappingBenchmark can measure the mapping on its own
+    TransactionResponse mapToResponse(Transaction transaction) {
+        TransactionResponse response = mapTransactionFields(transaction);
+        response.setBankAccountId(transaction.getBankAccount().getId());
+        response.setBankName(transaction.getBankAccount().getBankName());
+        response.setAccountOwner(transaction.getBankAccount().getAccountOwner());
+        response.setIban(transaction.getBankAccount().getIban());
+        
+        return response;
+    }
+    
+    // Takes the bank details from the snapshot so the bank account proxy is never initialized
+    private TransactionResponse mapToResponse(Transaction transaction, BankAccountResponse bankAccount) {
+        TransactionResponse response = mapTransactionFields(transaction);
+        response.setBankAccountId(bankAccount.getId());
+        response.setBankName(bankAccount.getBankName());
+        response.setAccountOwner(bankAccount.getAccountOwner());
+        response.setIban(bankAccount.getIban());
+        
+        return response;
+    }
+    
+    private TransactionResponse mapTransactionFields(Transaction transaction) {
         TransactionResponse response = new TransactionResponse();
         response.setId(transaction.getId());
         response.setInternalId(transaction.getInternalId());
@@ -204,10 +712,6 @@ public class TransactionService {
             response.setUserName(transaction.getUser().getUsername());
         }
         
-        response.setBankAccountId(transaction.getBankAccount().getId());
-        response.setBankName(transaction.getBankAccount().getBankName());
-        response.setAccountOwner(transaction.getBankAccount().getAccountOwner());
-        response.setIban(transaction.getBankAccount().getIban());
         response.setAmount(transaction.getAmount());
         response.setDescription(transaction.getDescription());
         response.setStatus(transaction.getStatus());
@@ -217,14 +721,48 @@ public class TransactionService {
         response.setRejectedAt(transaction.getRejectedAt());
         response.setRejectedBy(transaction.getRejectedBy());
         response.setNote(transaction.getNote());
+        response.setPaymentConfirmed(transaction.getPaymentConfirmed());
+        response.setPaymentDate(transaction.getPaymentDate());
+        response.setProcessingTimeSeconds(calculateProcessingTime(
+                transaction.getCreatedAt(), transaction.getApprovedAt(), transaction.getRejectedAt()));
         
-        // Calculate processing time
-        if ((transaction.getApprovedAt() != null || transaction.getRejectedAt() != null) && transaction.getCreatedAt() != null) {
-            LocalDateTime endTime = transaction.getApprovedAt() != null ? transaction.getApprovedAt() : transaction.getRejectedAt();
-            Duration duration = Duration.between(transaction.getCreatedAt(), endTime);
-            response.setProcessingTimeSeconds(duration.getSeconds());
-        }
+        return response;
+    }
+    
+    TransactionResponse mapToResponse(TransactionView transaction) {
+        TransactionResponse response = new TransactionResponse();
+        response.setId(transaction.id());
+        response.setInternalId(transaction.internalId());
+        response.setUserId(transaction.userId());
+        response.setUserName(transaction.userName());
+        response.setBankAccountId(transaction.bankAccountId());
+        response.setBankName(transaction.bankName());
+        response.setAccountOwner(transaction.accountOwner());
+        response.setIban(transaction.iban());
+        response.setAmount(transaction.amount());
+        response.setDescription(transaction.description());
+        response.setStatus(transaction.status());
+        response.setCreatedAt(transaction.createdAt());
+        response.setApprovedAt(transaction.approvedAt());
+        response.setApprovedBy(transaction.approvedBy());
+        response.setRejectedAt(transaction.rejectedAt());
+        response.setRejectedBy(transaction.rejectedBy());
+        response.setNote(transaction.note());
+        response.setPaymentConfirmed(transaction.paymentConfirmed());
+        response.setPaymentDate(transaction.paymentDate());
+        response.setProcessingTimeSeconds(calculateProcessingTime(
+                transaction.createdAt(), transaction.approvedAt(), transaction.rejectedAt()));
         
         return response;
     }
+    
+    // Seconds between creation and approval/rejection, null while pending
+    private Long calculateProcessingTime(LocalDateTime createdAt, LocalDateTime approvedAt, LocalDateTime rejectedAt) {
+        if ((approvedAt == null && rejectedAt == null) || createdAt == null) {
+            return null;
+        }
+        
+        LocalDateTime endTime = approvedAt != null ? approvedAt : rejectedAt;
+        return Duration.between(createdAt, endTime).getSeconds();
+    }
 }
@@ -0,0 +1,217 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events subscriptions for customer tracking pages.
+ *
+ * Emitters are async servlet responses, so an idle subscriber holds a
+ * socket but no request thread. Events are sent from a small dispatch pool
+ * so a slow client never stalls the thread that committed the change.
+ * Heartbeats have a thread of their own, since a pass over every open
+ * stream can take a while and must not hold up the shared scheduler.
+ *
+ * Publishing is node-local: only changes committed by this instance reach
+ * the streams it holds. With several instances behind a load balancer, an
+ * approval handled by another node is never pushed to a subscriber here,
+ * who only sees it on the next reconnect snapshot or poll. Fanning events
+ * out across nodes needs a shared channel (e.g. PostgreSQL LISTEN/NOTIFY
+ * or a message broker), which this class does not provide.
+ */
+@Component
+public class TransactionStatusStream {
+    
+    private static final Logger log = LoggerFactory.getLogger(TransactionStatusStream.class);
+    
+    private final ConcurrentHashMap<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    
+    private final ExecutorService dispatcher = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "transaction-status-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-status-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final int maxSubscribers;
+    
+    private final long timeoutMillis;
+    
+    public TransactionStatusStream(@Value("${tracking-events.max-subscribers:20000}") int maxSubscribers,
+                                   @Value("${tracking-events.timeout-ms:600000}") long timeoutMillis,
+                                   @Value("${tracking-events.heartbeat-ms:30000}") long heartbeatMillis) {
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    // Open a stream for a transaction, starting with its current state. The subscriber is registered before the
+    // state is loaded, so a change committed in between is either in the snapshot or follows it as an event
+    public SseEmitter subscribe(String internalId, Supplier<TransactionResponse> currentState) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ServiceUnavailableException("Too many open tracking streams, please poll instead");
+        }
+        
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribers.compute(internalId, (key, emitters) -> {
+            Set<SseEmitter> target = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            target.add(emitter);
+            return target;
+        });
+        
+        emitter.onCompletion(() -> unsubscribe(internalId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unsubscribe(internalId, emitter));
+        
+        // Events published meanwhile wait on the emitter's lock, so they can only follow the snapshot
+        synchronized (emitter) {
+            TransactionResponse current;
+            try {
+                current = currentState.get();
+            } catch (RuntimeException e) {
+                unsubscribe(internalId, emitter);
+                throw e;
+            }
+            
+            send(internalId, emitter, "snapshot", current);
+            
+            // Nothing more will happen to a finished transaction
+            if (isFinal(current)) {
+                emitter.complete();
+            }
+        }
+        
+        return emitter;
+    }
+    
+    public boolean hasSubscribers(String internalId) {
+        return subscribers.containsKey(internalId);
+    }
+    
+    // Push a committed change to everyone watching the transaction
+    public void publish(TransactionResponse response) {
+        Set<SseEmitter> emitters = subscribers.get(response.getInternalId());
+        if (emitters == null) {
+            return;
+        }
+        
+        dispatcher.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                synchronized (emitter) {
+                    if (send(response.getInternalId(), emitter, "status", response) && isFinal(response)) {
+                        emitter.complete();
+                    }
+                }
+            }
+        });
+    }
+    
+    public void publishAfterCommit(TransactionResponse response) {
+        AfterCommit.run(() -> publish(response));
+    }
+    
+    // Bulk changes only load the transactions someone is actually watching, off the request thread
+    public void publishAfterCommit(Collection<String> internalIds, Function<Collection<String>, List<TransactionResponse>> loader) {
+        AfterCommit.run(() -> {
+            List<String> watched = internalIds.stream().filter(this::hasSubscribers).toList();
+            if (watched.isEmpty()) {
+                return;
+            }
+            
+            dispatcher.execute(() -> {
+                try {
+                    loader.apply(watched).forEach(this::publish);
+                } catch (RuntimeException e) {
+                    log.warn("Could not publish status changes for {} tracked transactions", watched.size(), e);
+                }
+            });
+        });
+    }
+    
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+    
+    // Comment lines keep proxies from closing idle streams and reveal dead connections
+    public void sendHeartbeats() {
+        subscribers.forEach((internalId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | RuntimeException e) {
+                    // Anything escaping the fixed-delay task would cancel every later heartbeat
+                    unsubscribe(internalId, emitter);
+                }
+            }
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+    
+    // Helper methods
+    private boolean send(String internalId, SseEmitter emitter, String eventName, TransactionResponse response) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(eventName)
+                    .id(response.getStatus() + ":" + response.getPaymentConfirmed())
+                    .data(response, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping tracking stream for {}: {}", internalId, e.getMessage());
+            unsubscribe(internalId, emitter);
+            return false;
+        }
+    }
+    
+    private void unsubscribe(String internalId, SseEmitter emitter) {
+        AtomicBoolean removed = new AtomicBoolean();
+        
+        // Removal and emptiness check happen under the map's bin lock, so subscribe never adds to a dropped set
+        subscribers.computeIfPresent(internalId, (key, emitters) -> {
+            removed.set(emitters.remove(emitter));
+            return emitters.isEmpty() ? null : emitters;
+        });
+        
+        if (removed.get()) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+    
+    private static boolean isFinal(TransactionResponse response) {
+        return "APPROVED".equals(response.getStatus()) || "REJECTED".equals(response.getStatus());
+    }
+}
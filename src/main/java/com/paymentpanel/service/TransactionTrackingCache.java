@@ -0,0 +1,54 @@
+package com.paymentpanel.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.paymentpanel.dto.response.TransactionResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of tracking responses keyed by internal ID. Changes made on
+ * this node refresh or invalidate entries after commit; the TTL bounds how
+ * long a change made on another node can stay invisible.
+ */
+@Component
+public class TransactionTrackingCache {
+    
+    private final Cache<String, TransactionResponse> cache;
+    
+    public TransactionTrackingCache(@Value("${tracking-cache.max-size:50000}") long maxSize,
+                                    @Value("${tracking-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+    
+    // Loads at most once per key; concurrent misses wait for the same load
+    public TransactionResponse get(String internalId, Function<String, TransactionResponse> loader) {
+        return cache.get(internalId, loader);
+    }
+    
+    // Replace the entry with the committed state of a changed transaction
+    public void refreshAfterCommit(TransactionResponse response) {
+        AfterCommit.run(() -> cache.put(response.getInternalId(), response));
+    }
+    
+    public void invalidateAfterCommit(Collection<String> internalIds) {
+        AfterCommit.run(() -> cache.invalidateAll(internalIds));
+    }
+    
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
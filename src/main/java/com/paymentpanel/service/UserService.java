@@ -20,6 +20,7 @@ public class UserService {
     private UserRepository userRepository;
     
     // Get all users
+    @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
         List<User> users = userRepository.findAll();
         
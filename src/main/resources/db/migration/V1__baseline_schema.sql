@@ -0,0 +1,126 @@
+-- Baseline schema, matching the JPA entities.
+--
+-- Databases created earlier by Hibernate (ddl-auto) are baselined at version 0 and then run this
+-- script too, so every statement is written to bring an existing schema to the same state.
+
+CREATE TABLE IF NOT EXISTS users (
+  id          BIGINT       NOT NULL PRIMARY KEY,
+  username    VARCHAR(50)  NOT NULL UNIQUE,
+  email       VARCHAR(100) NOT NULL UNIQUE,
+  password    VARCHAR(100),
+  first_name  VARCHAR(50),
+  last_name   VARCHAR(50),
+  phone       VARCHAR(20),
+  is_active   BOOLEAN,
+  created_at  TIMESTAMP(6),
+  updated_at  TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS admin_users (
+  id          BIGINT       NOT NULL PRIMARY KEY,
+  username    VARCHAR(50)  NOT NULL UNIQUE,
+  email       VARCHAR(100) NOT NULL UNIQUE,
+  password    VARCHAR(100) NOT NULL,
+  role        VARCHAR(20),
+  team_code   VARCHAR(10),
+  is_active   BOOLEAN,
+  last_login  TIMESTAMP(6),
+  created_at  TIMESTAMP(6),
+  updated_at  TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS bank_accounts (
+  id              BIGINT       NOT NULL PRIMARY KEY,
+  bank_name       VARCHAR(100) NOT NULL,
+  account_owner   VARCHAR(100) NOT NULL,
+  iban            VARCHAR(50)  NOT NULL UNIQUE,
+  branch_code     VARCHAR(20),
+  account_number  VARCHAR(50),
+  description     TEXT,
+  logo_url        VARCHAR(255),
+  min_limit       NUMERIC(38, 2),
+  max_limit       NUMERIC(38, 2),
+  status          VARCHAR(20),
+  team_code       VARCHAR(10),
+  created_at      TIMESTAMP(6),
+  updated_at      TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+  id                 BIGINT         NOT NULL PRIMARY KEY,
+  internal_id        VARCHAR(255)   UNIQUE,
+  user_id            BIGINT         REFERENCES users (id),
+  bank_account_id    BIGINT         NOT NULL REFERENCES bank_accounts (id),
+  amount             NUMERIC(38, 2) NOT NULL,
+  description        TEXT,
+  status             VARCHAR(20),
+  ip_address         VARCHAR(50),
+  user_agent         TEXT,
+  created_at         TIMESTAMP(6),
+  updated_at         TIMESTAMP(6),
+  approved_at        TIMESTAMP(6),
+  approved_by        VARCHAR(50),
+  rejected_at        TIMESTAMP(6),
+  rejected_by        VARCHAR(50),
+  note               TEXT,
+  payment_confirmed  BOOLEAN        NOT NULL DEFAULT FALSE,
+  payment_date       TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS daily_statistics (
+  id                       BIGINT         NOT NULL PRIMARY KEY,
+  date                     DATE           UNIQUE,
+  transaction_count        INTEGER,
+  approved_count           INTEGER,
+  rejected_count           INTEGER,
+  pending_count            INTEGER,
+  total_amount             NUMERIC(38, 2),
+  average_processing_time  INTEGER,
+  team_code                VARCHAR(10),
+  created_at               TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+  idempotency_key      VARCHAR(100) NOT NULL PRIMARY KEY,
+  request_fingerprint  VARCHAR(64)  NOT NULL,
+  transaction_id       BIGINT,
+  response_body        TEXT         NOT NULL,
+  created_at           TIMESTAMP(6),
+  expires_at           TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
+
+-- Columns changed by the earlier ad-hoc scripts (sql/schema_update.sql, transaction_update.sql)
+DO $$
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                 WHERE table_schema = current_schema() AND table_name = 'transactions' AND column_name = 'payment_confirmed') THEN
+    ALTER TABLE transactions ADD COLUMN payment_confirmed BOOLEAN NOT NULL DEFAULT FALSE;
+    ALTER TABLE transactions ADD COLUMN payment_date TIMESTAMP(6);
+  END IF;
+
+  -- The old payment method reference is no longer written
+  IF EXISTS (SELECT 1 FROM information_schema.columns
+             WHERE table_schema = current_schema() AND table_name = 'transactions' AND column_name = 'payment_method_id') THEN
+    ALTER TABLE transactions DROP CONSTRAINT IF EXISTS transactions_payment_method_id_fkey;
+    ALTER TABLE transactions ALTER COLUMN payment_method_id DROP NOT NULL;
+  END IF;
+END $$;
+
+-- Pooled id sequences (allocationSize = 50), formerly sql/pooled_id_sequences.sql. Tables that still
+-- use IDENTITY/serial ids are switched over and keep their ids: each sequence is set so the first
+-- block Hibernate reserves starts right after the current maximum id.
+DO $$
+DECLARE
+  tbl text;
+BEGIN
+  FOREACH tbl IN ARRAY ARRAY['transactions', 'users', 'bank_accounts', 'daily_statistics', 'admin_users'] LOOP
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tbl);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', tbl);
+    EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I', tbl || '_id_seq');
+    EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50 OWNED BY %I.id', tbl || '_id_seq', tbl);
+    -- Hibernate's pooled optimizer hands out (value - 49 .. value] for each value it reads
+    EXECUTE format('SELECT setval(%L, (SELECT COALESCE(MAX(id), 0) + 50 FROM %I), false)', tbl || '_id_seq', tbl);
+  END LOOP;
+END $$;
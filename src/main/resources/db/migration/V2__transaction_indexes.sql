@@ -0,0 +1,23 @@
+-- Indexes for the transaction queries. Built CONCURRENTLY so large tables stay writable;
+-- Flyway runs this migration outside a transaction because of that.
+
+-- Keyset pagination on (created_at, id), overall and per status. The status index also serves
+-- the status + created_at range filters (findByStatusAndDateRange, countByStatusAndDateRange).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_created_at_id
+  ON transactions (created_at, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_status_created_at_id
+  ON transactions (status, created_at, id);
+
+-- A user's history, newest first
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_user_id_created_at
+  ON transactions (user_id, created_at DESC);
+
+-- Export and bulk changes filtered by bank account; also indexes the foreign key
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_bank_account_id_created_at
+  ON transactions (bank_account_id, created_at);
+
+-- The approval queue: pending rows are a small, constantly changing slice of the table
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_pending_created_at_id
+  ON transactions (created_at, id)
+  WHERE status = 'PENDING';
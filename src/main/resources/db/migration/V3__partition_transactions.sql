@@ -0,0 +1,105 @@
+-- Turns transactions into a table partitioned by month on created_at.
+--
+-- Rows are copied into the new table, so on a large database run this in a maintenance window.
+-- New monthly partitions are created ahead of time, and old ones detached, by
+-- TransactionPartitionManager; this script only creates the partitions the existing rows
+-- need plus the next few months.
+--
+-- Unique indexes on a partitioned table must contain the partition key, so:
+-- - the primary key becomes (id, created_at); ids still come from transactions_id_seq
+-- - internal_id uniqueness across partitions is kept by the transaction_internal_ids registry,
+--   filled by a trigger. Entries stay when a row is deleted or its partition is detached, so
+--   an internal ID is never handed out twice.
+
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+
+DROP INDEX IF EXISTS idx_transactions_created_at_id;
+DROP INDEX IF EXISTS idx_transactions_status_created_at_id;
+DROP INDEX IF EXISTS idx_transactions_user_id_created_at;
+DROP INDEX IF EXISTS idx_transactions_bank_account_id_created_at;
+DROP INDEX IF EXISTS idx_transactions_pending_created_at_id;
+
+CREATE TABLE transactions (
+  id                 BIGINT         NOT NULL,
+  internal_id        VARCHAR(255),
+  user_id            BIGINT         REFERENCES users (id),
+  bank_account_id    BIGINT         NOT NULL REFERENCES bank_accounts (id),
+  amount             NUMERIC(38, 2) NOT NULL,
+  description        TEXT,
+  status             VARCHAR(20),
+  ip_address         VARCHAR(50),
+  user_agent         TEXT,
+  created_at         TIMESTAMP(6)   NOT NULL,
+  updated_at         TIMESTAMP(6),
+  approved_at        TIMESTAMP(6),
+  approved_by        VARCHAR(50),
+  rejected_at        TIMESTAMP(6),
+  rejected_by        VARCHAR(50),
+  note               TEXT,
+  payment_confirmed  BOOLEAN        NOT NULL DEFAULT FALSE,
+  payment_date       TIMESTAMP(6),
+  PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- One partition per month from the oldest row up to three months ahead, named transactions_YYYY_MM
+DO $$
+DECLARE
+  month date;
+  last_month date := date_trunc('month', now()) + interval '3 months';
+BEGIN
+  SELECT date_trunc('month', COALESCE(MIN(COALESCE(created_at, updated_at)), now()))
+    INTO month FROM transactions_unpartitioned;
+
+  WHILE month <= last_month LOOP
+    EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                   'transactions_' || to_char(month, 'YYYY_MM'), month, month + interval '1 month');
+    month := month + interval '1 month';
+  END LOOP;
+END $$;
+
+INSERT INTO transactions (id, internal_id, user_id, bank_account_id, amount, description, status, ip_address,
+                          user_agent, created_at, updated_at, approved_at, approved_by, rejected_at, rejected_by,
+                          note, payment_confirmed, payment_date)
+SELECT id, internal_id, user_id, bank_account_id, amount, description, status, ip_address,
+       user_agent, COALESCE(created_at, updated_at, now()), updated_at, approved_at, approved_by, rejected_at, rejected_by,
+       note, payment_confirmed, payment_date
+FROM transactions_unpartitioned;
+
+-- The sequence is owned by the old id column and would be dropped with it
+ALTER SEQUENCE transactions_id_seq OWNED BY transactions.id;
+DROP TABLE transactions_unpartitioned;
+
+-- Indexes are declared on the parent and created on every partition, present and future
+CREATE INDEX idx_transactions_created_at_id ON transactions (created_at, id);
+CREATE INDEX idx_transactions_status_created_at_id ON transactions (status, created_at, id);
+CREATE INDEX idx_transactions_user_id_created_at ON transactions (user_id, created_at DESC);
+CREATE INDEX idx_transactions_bank_account_id_created_at ON transactions (bank_account_id, created_at);
+CREATE INDEX idx_transactions_pending_created_at_id ON transactions (created_at, id) WHERE status = 'PENDING';
+CREATE INDEX idx_transactions_internal_id ON transactions (internal_id);
+
+CREATE TABLE transaction_internal_ids (
+  internal_id     VARCHAR(255) NOT NULL PRIMARY KEY,
+  transaction_id  BIGINT       NOT NULL,
+  created_at      TIMESTAMP(6) NOT NULL
+);
+
+INSERT INTO transaction_internal_ids (internal_id, transaction_id, created_at)
+SELECT internal_id, id, created_at FROM transactions WHERE internal_id IS NOT NULL;
+
+CREATE FUNCTION register_transaction_internal_id() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+  -- A duplicate fails here with a unique violation and rolls back the insert
+  INSERT INTO transaction_internal_ids (internal_id, transaction_id, created_at)
+  VALUES (NEW.internal_id, NEW.id, NEW.created_at);
+  RETURN NULL;
+END $$;
+
+CREATE TRIGGER trg_transactions_register_internal_id
+  AFTER INSERT ON transactions
+  FOR EACH ROW WHEN (NEW.internal_id IS NOT NULL)
+  EXECUTE FUNCTION register_transaction_internal_id();
+
+CREATE TRIGGER trg_transactions_register_changed_internal_id
+  AFTER UPDATE OF internal_id ON transactions
+  FOR EACH ROW WHEN (NEW.internal_id IS NOT NULL AND NEW.internal_id IS DISTINCT FROM OLD.internal_id)
+  EXECUTE FUNCTION register_transaction_internal_id();
@@ -0,0 +1,28 @@
+-- Finalized transactions moved out of the hot table by TransactionArchiver. Same columns as
+-- transactions plus archived_at; rows keep their id and internal_id, and the internal ID stays
+-- registered in transaction_internal_ids, so it can't be issued again.
+CREATE TABLE transactions_archive (
+  id                 BIGINT         NOT NULL PRIMARY KEY,
+  internal_id        VARCHAR(255)   UNIQUE,
+  user_id            BIGINT         REFERENCES users (id),
+  bank_account_id    BIGINT         NOT NULL REFERENCES bank_accounts (id),
+  amount             NUMERIC(38, 2) NOT NULL,
+  description        TEXT,
+  status             VARCHAR(20),
+  ip_address         VARCHAR(50),
+  user_agent         TEXT,
+  created_at         TIMESTAMP(6)   NOT NULL,
+  updated_at         TIMESTAMP(6),
+  approved_at        TIMESTAMP(6),
+  approved_by        VARCHAR(50),
+  rejected_at        TIMESTAMP(6),
+  rejected_by        VARCHAR(50),
+  note               TEXT,
+  payment_confirmed  BOOLEAN        NOT NULL DEFAULT FALSE,
+  payment_date       TIMESTAMP(6),
+  archived_at        TIMESTAMP(6)   NOT NULL
+);
+
+-- A user's history and exports by date range
+CREATE INDEX idx_transactions_archive_user_id_created_at ON transactions_archive (user_id, created_at DESC);
+CREATE INDEX idx_transactions_archive_created_at_id ON transactions_archive (created_at, id);
@@ -0,0 +1,37 @@
+-- Weekly (ISO, Monday-based) and monthly totals of daily_statistics. StatisticsService applies every
+-- flushed delta to the day, its week and its month in one transaction, so a long range reads one row
+-- per period instead of one per day.
+CREATE SEQUENCE statistics_rollups_id_seq INCREMENT BY 50;
+
+CREATE TABLE statistics_rollups (
+  id                       BIGINT         NOT NULL PRIMARY KEY,
+  granularity              VARCHAR(10)    NOT NULL,
+  period_start             DATE           NOT NULL,
+  transaction_count        INTEGER,
+  approved_count           INTEGER,
+  rejected_count           INTEGER,
+  pending_count            INTEGER,
+  total_amount             NUMERIC(38, 2),
+  average_processing_time  INTEGER,
+  created_at               TIMESTAMP(6),
+  CONSTRAINT uk_statistics_rollups_granularity_period_start UNIQUE (granularity, period_start)
+);
+
+-- Roll up the days recorded so far; the average is weighted by the approvals it was taken over
+INSERT INTO statistics_rollups (id, granularity, period_start, transaction_count, approved_count, rejected_count,
+                                pending_count, total_amount, average_processing_time, created_at)
+SELECT nextval('statistics_rollups_id_seq'),
+       p.granularity,
+       p.period_start,
+       COALESCE(SUM(d.transaction_count), 0),
+       COALESCE(SUM(d.approved_count), 0),
+       COALESCE(SUM(d.rejected_count), 0),
+       COALESCE(SUM(d.pending_count), 0),
+       COALESCE(SUM(d.total_amount), 0),
+       COALESCE(SUM(CAST(d.average_processing_time AS BIGINT) * d.approved_count) / NULLIF(SUM(d.approved_count), 0), 0),
+       LOCALTIMESTAMP
+FROM daily_statistics d
+CROSS JOIN LATERAL (VALUES ('WEEK', CAST(date_trunc('week', d.date) AS DATE)),
+                           ('MONTH', CAST(date_trunc('month', d.date) AS DATE))) AS p (granularity, period_start)
+WHERE d.date IS NOT NULL
+GROUP BY p.granularity, p.period_start;
@@ -0,0 +1,8 @@
+-- HdrHistogram sketches of processing times (see LatencySketch), merged on every statistics flush.
+-- Percentiles of a week, month or date range come from adding up the sketches, never from transactions.
+-- Rows flushed before this migration have no sketch and report no percentiles.
+ALTER TABLE daily_statistics ADD COLUMN approval_time_sketch BYTEA;
+ALTER TABLE daily_statistics ADD COLUMN rejection_time_sketch BYTEA;
+
+ALTER TABLE statistics_rollups ADD COLUMN approval_time_sketch BYTEA;
+ALTER TABLE statistics_rollups ADD COLUMN rejection_time_sketch BYTEA;
@@ -0,0 +1,60 @@
+package com.paymentpanel;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every statement execution that reaches the JDBC driver. A batch
+ * counts as one execution (one round trip) carrying several rows.
+ */
+public class SqlStatementCounter implements QueryExecutionListener {
+    
+    private final List<Execution> executions = new CopyOnWriteArrayList<>();
+    
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+    
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        for (QueryInfo queryInfo : queryInfoList) {
+            int rows = execInfo.isBatch() ? Math.max(queryInfo.getParametersList().size(), 1) : 1;
+            executions.add(new Execution(queryInfo.getQuery(), execInfo.isBatch(), rows, Thread.currentThread().getId()));
+        }
+    }
+    
+    public void reset() {
+        executions.clear();
+    }
+    
+    public List<Execution> getExecutions() {
+        return List.copyOf(executions);
+    }
+    
+    public long count() {
+        return executions.size();
+    }
+    
+    // Executions whose SQL starts with the given prefix, e.g. "insert into transactions"
+    public List<Execution> executionsStartingWith(String sqlPrefix) {
+        String prefix = sqlPrefix.toLowerCase(Locale.ROOT);
+        return executions.stream()
+                .filter(execution -> execution.sql().trim().toLowerCase(Locale.ROOT).startsWith(prefix))
+                .toList();
+    }
+    
+    // Executions issued by one thread, e.g. the one serving a MockMvc request, leaving out scheduled jobs
+    public List<Execution> executionsOnThread(Thread thread) {
+        return executions.stream()
+                .filter(execution -> execution.threadId() == thread.getId())
+                .toList();
+    }
+    
+    public record Execution(String sql, boolean batch, int rows, long threadId) {
+    }
+}
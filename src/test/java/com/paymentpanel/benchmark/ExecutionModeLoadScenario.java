@@ -0,0 +1,228 @@
+package com.paymentpanel.benchmark;
+
+import com.paymentpanel.PanelApplication;
+import com.paymentpanel.dto.request.BankAccountRequest;
+import com.paymentpanel.service.BankAccountService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test comparing platform-thread and virtual-thread request execution.
+ *
+ * For each mode the application is started in-process against the configured database, then
+ * a fixed number of clients call POST /api/transactions and GET /api/transactions/tracking/{id}
+ * for a fixed time. Throughput and latency percentiles are printed and written as JSON.
+ *
+ * Run with: ./mvnw -Pload-test verify -DskipTests -Dload.args="concurrency=400 duration=30"
+ */
+public class ExecutionModeLoadScenario {
+    
+    private static final Pattern INTERNAL_ID = Pattern.compile("\"internalId\":\"([^\"]+)\"");
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "400"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        Path output = Path.of(options.getOrDefault("output", "target/load-test-results.json"));
+        
+        List<Result> results = new ArrayList<>();
+        for (String mode : options.getOrDefault("modes", "platform,virtual").split(",")) {
+            results.addAll(runMode(mode, concurrency, warmupSeconds, durationSeconds));
+        }
+        
+        System.out.printf("%n%-9s %-10s %12s %10s %10s %10s %8s%n",
+                "mode", "endpoint", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        results.forEach(result -> System.out.printf("%-9s %-10s %12.1f %10.2f %10.2f %10.2f %8d%n",
+                result.mode, result.endpoint, result.throughput(), result.percentileMillis(0.50),
+                result.percentileMillis(0.99), result.percentileMillis(1.0), result.errors));
+        
+        writeJson(output, concurrency, durationSeconds, results);
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+    
+    private static List<Result> runMode(String mode, int concurrency, int warmupSeconds, int durationSeconds)
+            throws Exception {
+        
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PanelApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                        "spring.jpa.show-sql=false",
+                        // Every request comes from localhost, the per-IP bucket would answer most of them with 429
+                        "rate-limit.enabled=false",
+                        "logging.level.org.hibernate=WARN",
+                        "logging.level.com.paymentpanel=INFO")
+                .run();
+        
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Long bankAccountId = createBankAccount(context);
+            String body = "{\"bankAccountId\":" + bankAccountId + ",\"amount\":100.00,\"description\":\"load test\"}";
+            
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            
+            HttpRequest create = HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            
+            ConcurrentLinkedQueue<String> internalIds = new ConcurrentLinkedQueue<>();
+            Supplier<HttpRequest> createRequests = () -> create;
+            
+            run(mode, "create", client, createRequests, concurrency, warmupSeconds, internalIds);
+            Result created = run(mode, "create", client, createRequests, concurrency, durationSeconds, internalIds);
+            
+            String[] ids = internalIds.toArray(String[]::new);
+            if (ids.length == 0) {
+                throw new IllegalStateException("No transaction was created in " + mode + " mode, check the errors above");
+            }
+            Supplier<HttpRequest> trackingRequests = () -> HttpRequest.newBuilder(URI.create(baseUrl
+                    + "/api/transactions/tracking/" + ids[ThreadLocalRandom.current().nextInt(ids.length)])).build();
+            
+            run(mode, "tracking", client, trackingRequests, concurrency, warmupSeconds, null);
+            Result tracked = run(mode, "tracking", client, trackingRequests, concurrency, durationSeconds, null);
+            
+            return List.of(created, tracked);
+        } finally {
+            context.close();
+        }
+    }
+    
+    // Each client sends its next request as soon as the previous one completes
+    private static Result run(String mode, String endpoint, HttpClient client, Supplier<HttpRequest> requests,
+                              int concurrency, int seconds, ConcurrentLinkedQueue<String> internalIds) throws Exception {
+        
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> clients = new ArrayList<>();
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(requests.get(), HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                            if (internalIds != null) {
+                                Matcher matcher = INTERNAL_ID.matcher(response.body());
+                                if (matcher.find()) {
+                                    internalIds.add(matcher.group(1));
+                                }
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        
+        long[] all = new long[0];
+        for (Future<long[]> future : clients) {
+            long[] latencies = future.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        
+        return new Result(mode, endpoint, seconds, all, errors.get());
+    }
+    
+    private static Long createBankAccount(ConfigurableApplicationContext context) {
+        BankAccountRequest request = new BankAccountRequest();
+        request.setBankName("Load Test Bank");
+        request.setAccountOwner("Load Test");
+        request.setIban("TR" + System.currentTimeMillis());
+        return context.getBean(BankAccountService.class).createBankAccount(request).getId();
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+    
+    private static void writeJson(Path output, int concurrency, int durationSeconds, List<Result> results)
+            throws IOException {
+        
+        StringBuilder json = new StringBuilder("{\"concurrency\":").append(concurrency)
+                .append(",\"durationSeconds\":").append(durationSeconds).append(",\"results\":[");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append(i > 0 ? "," : "")
+                    .append(String.format(Locale.ROOT,
+                            "{\"mode\":\"%s\",\"endpoint\":\"%s\",\"requests\":%d,\"errors\":%d,"
+                                    + "\"throughput\":%.1f,\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}",
+                            result.mode, result.endpoint, result.latencies.length, result.errors,
+                            result.throughput(), result.percentileMillis(0.50), result.percentileMillis(0.99),
+                            result.percentileMillis(1.0)));
+        }
+        json.append("]}");
+        
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, json);
+    }
+    
+    private record Result(String mode, String endpoint, int seconds, long[] latencies, long errors) {
+        
+        double throughput() {
+            return (double) latencies.length / seconds;
+        }
+        
+        // latencies are sorted
+        double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.paymentpanel.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.paymentpanel.dto.response.TransactionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+// Response serialization with an ObjectMapper configured like the application's (see spring.jackson.* properties)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    
+    @Param({"10", "100"})
+    private int pageSize;
+    
+    private ObjectMapper objectMapper;
+    
+    private TransactionResponse transaction;
+    
+    private Page<TransactionResponse> page;
+    
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .dateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"))
+                .timeZone(TimeZone.getTimeZone("Europe/Istanbul"))
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        
+        List<TransactionResponse> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            content.add(transaction(i));
+        }
+        transaction = content.get(0);
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 25_000);
+    }
+    
+    @Benchmark
+    public byte[] transaction() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+    
+    @Benchmark
+    public byte[] page() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+    
+    private static TransactionResponse transaction(int index) {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 14, 10, 15, 30).plusSeconds(index);
+        
+        TransactionResponse response = new TransactionResponse();
+        response.setId(1_000_000L + index);
+        response.setInternalId(String.format("0523084A1C2B%04X", index));
+        response.setUserId(42L);
+        response.setUserName("customer42");
+        response.setBankAccountId(7L);
+        response.setBankName("Ziraat Bankasi");
+        response.setAccountOwner("Payment Panel Ltd");
+        response.setIban("TR330006100519786457841326");
+        response.setAmount(new BigDecimal("1250.00"));
+        response.setDescription("Deposit");
+        response.setStatus("APPROVED");
+        response.setCreatedAt(createdAt);
+        response.setApprovedAt(createdAt.plusMinutes(7));
+        response.setApprovedBy("admin");
+        response.setProcessingTimeSeconds(420L);
+        response.setPaymentConfirmed(true);
+        response.setPaymentDate(createdAt.plusMinutes(2));
+        return response;
+    }
+}
@@ -0,0 +1,61 @@
+package com.paymentpanel.benchmark;
+
+import com.paymentpanel.service.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the rate limit check on transaction creation: many clients each with their own bucket, every thread
+// hammering one bucket, and a client that is over its limit. All of it should stay far below a database round trip
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+    
+    private static final int CLIENTS = 10_000;
+    
+    private final String[] addresses = new String[CLIENTS];
+    
+    // Generous enough that the spread and contended benchmarks measure granted tokens
+    private final RateLimiter<String> generous = new RateLimiter<>(1_000_000, 1_000_000_000, CLIENTS * 2L);
+    
+    private final RateLimiter<String> exhausted = new RateLimiter<>(1, 0.001, CLIENTS * 2L);
+    
+    public RateLimiterBenchmark() {
+        for (int i = 0; i < CLIENTS; i++) {
+            addresses[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+        exhausted.tryAcquire(addresses[0]);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public long manyClients() {
+        return generous.tryAcquire(addresses[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public long oneClientContended() {
+        return generous.tryAcquire(addresses[0]);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public long overLimit() {
+        return exhausted.tryAcquire(addresses[0]);
+    }
+}
@@ -0,0 +1,67 @@
+package com.paymentpanel.benchmark;
+
+import com.paymentpanel.service.StatisticsAccumulator;
+import com.paymentpanel.service.StatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Running average of processing time: the per-approval update the service used to do, the batched merge it
+// does now at flush time, and the contended accumulator write that replaced the per-approval row update
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsAverageBenchmark {
+    
+    private static final int BATCH_SIZE = 100;
+    
+    private final StatisticsAccumulator accumulator = new StatisticsAccumulator();
+    
+    private final LocalDate today = LocalDate.now();
+    
+    private int average = 420;
+    
+    private int approvedCount = 10_000;
+    
+    // One integer-average update per approval, as updateStatisticsForApprovedTransaction did
+    @Benchmark
+    public int perApprovalAverage() {
+        int result = average;
+        int count = approvedCount;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            count++;
+            int currentTotal = result * (count - 1);
+            result = (currentTotal + 300 + i) / count;
+        }
+        return result;
+    }
+    
+    // The same approvals folded into one mergeAverage call, as a flush does
+    @Benchmark
+    public int mergedAverage() {
+        long addedSum = 0;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            addedSum += 300 + i;
+        }
+        return StatisticsService.mergeAverage(average, approvedCount, addedSum, BATCH_SIZE);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void recordApprovedContended() {
+        accumulator.recordApproved(today, 300);
+    }
+}
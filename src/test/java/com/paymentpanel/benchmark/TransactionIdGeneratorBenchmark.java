@@ -0,0 +1,51 @@
+package com.paymentpanel.benchmark;
+
+import com.paymentpanel.service.RandomTransactionIdGenerator;
+import com.paymentpanel.service.SnowflakeTransactionIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Compares the snowflake generator with the previous truncated-UUID approach, single and multi-threaded
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionIdGeneratorBenchmark {
+    
+    private final SnowflakeTransactionIdGenerator snowflake = new SnowflakeTransactionIdGenerator(1);
+    private final RandomTransactionIdGenerator uuid = new RandomTransactionIdGenerator();
+    
+    @Benchmark
+    public String snowflake() {
+        return snowflake.nextId();
+    }
+    
+    @Benchmark
+    public String uuid() {
+        return uuid.nextId();
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public String snowflakeContended() {
+        return snowflake.nextId();
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public String uuidContended() {
+        return uuid.nextId();
+    }
+}
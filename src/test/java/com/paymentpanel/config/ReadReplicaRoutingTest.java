@@ -0,0 +1,104 @@
+package com.paymentpanel.config;
+
+import com.paymentpanel.dto.request.UserRequest;
+import com.paymentpanel.dto.response.UserResponse;
+import com.paymentpanel.service.UserService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A second in-memory H2 database stands in for the replica
+@SpringBootTest(properties = "replicas.urls=" + ReadReplicaRoutingTest.REPLICA_URL)
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTest {
+    
+    static final String REPLICA_URL = "jdbc:h2:mem:payment_panel_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ReplicaRoutingDataSource dataSource;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private UserService userService;
+    
+    @TempDir
+    private Path tempDir;
+    
+    // The replica is a copy of the primary that never catches up, so every read shows where it was sent
+    @BeforeEach
+    void copyPrimaryToReplica() throws Exception {
+        Path script = tempDir.resolve("primary.sql");
+        jdbcTemplate.execute("SCRIPT TO '" + script + "'");
+        
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM '" + script + "'");
+        }
+        
+        dataSource.checkReplicationLag();
+    }
+    
+    @Test
+    void readOnlyServiceMethodsReadFromTheReplica() {
+        UserResponse created = userService.createUser(userRequest("replicaread"));
+        
+        assertTrue(userService.getAllUsers().stream().noneMatch(user -> user.getId().equals(created.getId())),
+                "getAllUsers is read-only and reads the stale replica");
+        assertEquals(created.getId(), userService.getUserByUsername("replicaread").getId(),
+                "plain repository reads stay on the primary");
+    }
+    
+    @Test
+    void clientsThatJustWroteReadFromThePrimary() throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"replicawrite\",\"email\":\"replicawrite@example.com\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Cookie lastWrite = created.getResponse().getCookie(ReadYourWritesFilter.LAST_WRITE_COOKIE);
+        assertNotNull(lastWrite);
+        
+        String withoutCookie = mockMvc.perform(get("/api/users"))
+                .andReturn().getResponse().getContentAsString();
+        String withCookie = mockMvc.perform(get("/api/users").cookie(lastWrite))
+                .andReturn().getResponse().getContentAsString();
+        
+        assertFalse(withoutCookie.contains("replicawrite"));
+        assertTrue(withCookie.contains("replicawrite"));
+    }
+    
+    private static UserRequest userRequest(String username) {
+        UserRequest request = new UserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        return request;
+    }
+}
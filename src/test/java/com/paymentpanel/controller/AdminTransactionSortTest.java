@@ -0,0 +1,36 @@
+package com.paymentpanel.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdminTransactionSortTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void listedColumnsCanBeSortedOn() throws Exception {
+        mockMvc.perform(get("/api/admin/transactions").param("sort", "amount").param("direction", "asc"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/admin/transactions/status/pending").param("sort", "approvedAt"))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    void otherSortPropertiesAreRejected() throws Exception {
+        mockMvc.perform(get("/api/admin/transactions").param("sort", "bankAccount.iban"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cannot sort by: bankAccount.iban"));
+        mockMvc.perform(get("/api/admin/transactions/status/pending").param("sort", "createdAt, (SELECT 1)"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,370 @@
+package com.paymentpanel.controller;
+
+import com.paymentpanel.SqlStatementCounter;
+import com.paymentpanel.SqlStatementCountingConfiguration;
+import com.paymentpanel.dto.request.BankAccountRequest;
+import com.paymentpanel.dto.request.TransactionRequest;
+import com.paymentpanel.dto.request.UserRequest;
+import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.dto.response.UserResponse;
+import com.paymentpanel.service.BankAccountService;
+import com.paymentpanel.service.StatisticsService;
+import com.paymentpanel.service.TransactionService;
+import com.paymentpanel.service.TransactionTrackingCache;
+import com.paymentpanel.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * SQL statement budgets per endpoint. Each request is served by MockMvc on the
+ * test thread, and only the statements issued by that thread are counted, so
+ * scheduled jobs running at the same time don't affect the numbers.
+ *
+ * List endpoints are called with {@link #ROWS} rows in place: a budget that
+ * holds for those only holds if the statement count does not grow per row.
+ * When a change legitimately needs more statements, raise the budget in the
+ * same change and say why.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(SqlStatementCountingConfiguration.class)
+class ControllerQueryBudgetTest {
+    
+    private static final int ROWS = 20;
+    
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private SqlStatementCounter statementCounter;
+    
+    @Autowired
+    private BankAccountService bankAccountService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private TransactionService transactionService;
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private TransactionTrackingCache transactionTrackingCache;
+    
+    private Long bankAccountId;
+    
+    private UserResponse user;
+    
+    private List<TransactionResponse> transactions;
+    
+    @BeforeEach
+    void setUp() {
+        long suffix = SEQUENCE.incrementAndGet();
+        
+        BankAccountRequest bankAccount = new BankAccountRequest();
+        bankAccount.setBankName("Budget Bank");
+        bankAccount.setAccountOwner("Budget Owner");
+        bankAccount.setIban(String.format("TR%024d", suffix));
+        bankAccountId = bankAccountService.createBankAccount(bankAccount).getId();
+        
+        user = userService.createUser(userRequest("budget" + suffix));
+        
+        transactions = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            TransactionRequest request = new TransactionRequest();
+            request.setBankAccountId(bankAccountId);
+            request.setUserId(user.getId());
+            request.setAmount(new BigDecimal("100.00"));
+            request.setDescription("budget " + i);
+            transactions.add(transactionService.createTransaction(request));
+        }
+        
+        // Budgets are about the request itself, not about buffered statistics from the setup
+        statisticsService.flushStatistics();
+    }
+    
+    @Nested
+    class TransactionControllerBudgets {
+        
+        @Test
+        void createTransaction() throws Exception {
+            assertQueryBudget(2, post("/api/transactions")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"bankAccountId\":" + bankAccountId + ",\"userId\":" + user.getId()
+                            + ",\"amount\":250.00,\"description\":\"budget\"}"));
+        }
+        
+        @Test
+        void createTransactionWithIdempotencyKey() throws Exception {
+            assertQueryBudget(4, post("/api/transactions")
+                    .header("Idempotency-Key", "budget-" + SEQUENCE.incrementAndGet())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"bankAccountId\":" + bankAccountId + ",\"amount\":250.00}"));
+        }
+        
+        @Test
+        void getTransactionById() throws Exception {
+            assertQueryBudget(1, get("/api/transactions/{id}", transactions.get(0).getId()));
+        }
+        
+        // Usually a tracking cache hit; the entry is dropped first so the budget covers a miss
+        @Test
+        void getTransactionByInternalId() throws Exception {
+            transactionTrackingCache.invalidateAfterCommit(List.of(transactions.get(0).getInternalId()));
+            assertQueryBudget(1, get("/api/transactions/tracking/{internalId}", transactions.get(0).getInternalId()));
+        }
+        
+        // The hot table and the archive
+        @Test
+        void getTransactionsByUserId() throws Exception {
+            assertQueryBudget(2, get("/api/transactions/user/{userId}", user.getId()));
+        }
+        
+        @Test
+        void confirmPayment() throws Exception {
+            assertQueryBudget(4, put("/api/transactions/{id}/payment-confirmation", transactions.get(0).getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"paymentConfirmed\":true,\"paymentDate\":\"2024-01-15T10:30:00\"}"));
+        }
+    }
+    
+    @Nested
+    class AdminTransactionControllerBudgets {
+        
+        @Test
+        void getAllTransactions() throws Exception {
+            assertQueryBudget(2, get("/api/admin/transactions").param("size", String.valueOf(ROWS)));
+        }
+        
+        @Test
+        void getTransactionsByStatus() throws Exception {
+            assertQueryBudget(2, get("/api/admin/transactions/status/pending").param("size", String.valueOf(ROWS)));
+        }
+        
+        @Test
+        void getAllTransactionsByCursor() throws Exception {
+            assertQueryBudget(1, get("/api/admin/transactions/keyset").param("size", String.valueOf(ROWS)));
+        }
+        
+        @Test
+        void getTransactionsByStatusAndCursor() throws Exception {
+            assertQueryBudget(2, get("/api/admin/transactions/status/pending/keyset")
+                    .param("size", String.valueOf(ROWS))
+                    .param("includeApproximateTotal", "true"));
+        }
+        
+        @Test
+        void getTransactionById() throws Exception {
+            assertQueryBudget(1, get("/api/admin/transactions/{id}", transactions.get(0).getId()));
+        }
+        
+        @Test
+        void approveTransaction() throws Exception {
+            assertQueryBudget(4, put("/api/admin/transactions/{id}/approve", transactions.get(0).getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"actionBy\":\"admin\"}"));
+        }
+        
+        @Test
+        void rejectTransaction() throws Exception {
+            assertQueryBudget(4, put("/api/admin/transactions/{id}/reject", transactions.get(0).getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"actionBy\":\"admin\",\"note\":\"budget\"}"));
+        }
+        
+        @Test
+        void bulkApproveTransactions() throws Exception {
+            String ids = transactions.stream()
+                    .map(transaction -> transaction.getId().toString())
+                    .collect(Collectors.joining(","));
+            
+            assertQueryBudget(2, put("/api/admin/transactions/bulk-approve")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"ids\":[" + ids + "],\"actionBy\":\"admin\"}"));
+        }
+        
+        @Test
+        void bulkRejectTransactionsByFilter() throws Exception {
+            assertQueryBudget(3, put("/api/admin/transactions/bulk-reject")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"bankAccountId\":" + bankAccountId + ",\"actionBy\":\"admin\"}"));
+        }
+        
+        // The hot table and the archive
+        @Test
+        void exportTransactions() throws Exception {
+            assertQueryBudget(2, get("/api/admin/transactions/export")
+                    .param("startDate", LocalDate.now().toString())
+                    .param("endDate", LocalDate.now().toString())
+                    .param("bankAccountId", bankAccountId.toString()));
+        }
+        
+        @Test
+        void ingestTransactions() throws Exception {
+            StringBuilder csv = new StringBuilder("bankAccountId,userId,amount,description\n");
+            for (int i = 0; i < ROWS; i++) {
+                csv.append(bankAccountId).append(',').append(user.getId()).append(",75.00,ingest ").append(i).append('\n');
+            }
+            
+            assertQueryBudget(3, post("/api/admin/transactions/ingest")
+                    .contentType("text/csv")
+                    .content(csv.toString()));
+        }
+    }
+    
+    @Nested
+    class UserControllerBudgets {
+        
+        @Test
+        void getAllUsers() throws Exception {
+            assertQueryBudget(1, get("/api/users"));
+        }
+        
+        @Test
+        void getUserById() throws Exception {
+            assertQueryBudget(1, get("/api/users/{id}", user.getId()));
+        }
+        
+        @Test
+        void getUserByUsername() throws Exception {
+            assertQueryBudget(1, get("/api/users/username/{username}", user.getUsername()));
+        }
+        
+        @Test
+        void createUser() throws Exception {
+            String username = "budgetnew" + SEQUENCE.incrementAndGet();
+            assertQueryBudget(3, post("/api/users")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\"}"));
+        }
+        
+        @Test
+        void updateUser() throws Exception {
+            assertQueryBudget(2, put("/api/users/{id}", user.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"username\":\"" + user.getUsername() + "\",\"email\":\"" + user.getEmail()
+                            + "\",\"firstName\":\"Budget\"}"));
+        }
+        
+        @Test
+        void toggleUserStatus() throws Exception {
+            assertQueryBudget(2, put("/api/users/{id}/toggle-status", user.getId()));
+        }
+        
+        @Test
+        void deleteUser() throws Exception {
+            UserResponse unused = userService.createUser(userRequest("budgetdel" + SEQUENCE.incrementAndGet()));
+            assertQueryBudget(3, delete("/api/users/{id}", unused.getId()));
+        }
+    }
+    
+    @Nested
+    class BankAccountControllerBudgets {
+        
+        // Served from the in-memory snapshot
+        @Test
+        void getAllActiveBankAccounts() throws Exception {
+            assertQueryBudget(0, get("/api/bank-accounts"));
+        }
+        
+        @Test
+        void getBankAccountById() throws Exception {
+            assertQueryBudget(1, get("/api/bank-accounts/{id}", bankAccountId));
+        }
+    }
+    
+    @Nested
+    class AdminDashboardControllerBudgets {
+        
+        @Test
+        void getTodayStatistics() throws Exception {
+            assertQueryBudget(1, get("/api/admin/dashboard/statistics/today"));
+        }
+        
+        @Test
+        void getStatisticsByDate() throws Exception {
+            assertQueryBudget(1, get("/api/admin/dashboard/statistics/date/{date}", LocalDate.now()));
+        }
+        
+        @Test
+        void getStatisticsForDateRange() throws Exception {
+            assertQueryBudget(1, get("/api/admin/dashboard/statistics/range")
+                    .param("startDate", LocalDate.now().minusDays(30).toString())
+                    .param("endDate", LocalDate.now().toString()));
+        }
+        
+        @Test
+        void getMonthlyStatisticsForDateRange() throws Exception {
+            assertQueryBudget(1, get("/api/admin/dashboard/statistics/range")
+                    .param("startDate", LocalDate.now().minusYears(1).toString())
+                    .param("endDate", LocalDate.now().toString())
+                    .param("granularity", "month"));
+        }
+        
+        @Test
+        void getProcessingTimesForDateRange() throws Exception {
+            assertQueryBudget(1, get("/api/admin/dashboard/statistics/range/processing-times")
+                    .param("startDate", LocalDate.now().minusYears(1).toString())
+                    .param("endDate", LocalDate.now().toString()));
+        }
+        
+        @Test
+        void getTrackingCacheStatistics() throws Exception {
+            assertQueryBudget(0, get("/api/admin/dashboard/cache/tracking"));
+        }
+    }
+    
+    // Helper methods
+    private MvcResult assertQueryBudget(int budget, RequestBuilder request) throws Exception {
+        statementCounter.reset();
+        MvcResult result = mockMvc.perform(request).andReturn();
+        // Pooled id sequences are read once per 50 ids, whenever the block runs out; that cost is not the request's
+        List<SqlStatementCounter.Execution> executions = statementCounter.executionsOnThread(Thread.currentThread()).stream()
+                .filter(execution -> !execution.sql().toLowerCase(Locale.ROOT).contains("next value for"))
+                .toList();
+        
+        int status = result.getResponse().getStatus();
+        String body = result.getResponse().getContentAsString();
+        assertTrue(status < 400, () -> "request failed with status " + status + ": " + body);
+        
+        assertTrue(executions.size() <= budget, () -> executions.size() + " statements exceed the budget of "
+                + budget + ":\n" + executions.stream()
+                .map(execution -> (execution.batch() ? "[batch of " + execution.rows() + "] " : "") + execution.sql())
+                .collect(Collectors.joining("\n")));
+        return result;
+    }
+    
+    private static UserRequest userRequest(String username) {
+        UserRequest request = new UserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        return request;
+    }
+}
@@ -0,0 +1,86 @@
+package com.paymentpanel.controller;
+
+import com.paymentpanel.dto.request.BankAccountRequest;
+import com.paymentpanel.service.BankAccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Buckets that practically never refill, so every token taken stays taken for the whole test
+@SpringBootTest(properties = {
+        "rate-limit.ip.capacity=2",
+        "rate-limit.ip.tokens-per-second=0.01"
+})
+@AutoConfigureMockMvc
+class TransactionRateLimitTest {
+    
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private BankAccountService bankAccountService;
+    
+    private Long bankAccountId;
+    
+    @BeforeEach
+    void setUp() {
+        BankAccountRequest bankAccount = new BankAccountRequest();
+        bankAccount.setBankName("Rate Limit Bank");
+        bankAccount.setAccountOwner("Rate Limit Owner");
+        bankAccount.setIban(String.format("TR98%022d", SEQUENCE.incrementAndGet()));
+        bankAccountId = bankAccountService.createBankAccount(bankAccount).getId();
+    }
+    
+    @Test
+    void eachAddressGetsItsOwnBucket() throws Exception {
+        createTransaction("10.0.0.1", null, status().isCreated());
+        createTransaction("10.0.0.1", null, status().isCreated());
+        createTransaction("10.0.0.1", null, status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"));
+        
+        createTransaction("10.0.0.2", null, status().isCreated());
+    }
+    
+    @Test
+    void idempotentReplaysTakeNoToken() throws Exception {
+        createTransaction("10.0.1.1", "replay-key", status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"));
+        createTransaction("10.0.1.1", "replay-key", status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+        createTransaction("10.0.1.1", "replay-key", status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+        
+        createTransaction("10.0.1.1", null, status().isCreated());
+        createTransaction("10.0.1.1", "other-key", status().isTooManyRequests());
+    }
+    
+    private ResultActions createTransaction(String remoteAddress, String idempotencyKey, ResultMatcher expectedStatus)
+            throws Exception {
+        return mockMvc.perform(post("/api/transactions")
+                        .with(request -> {
+                            request.setRemoteAddr(remoteAddress);
+                            if (idempotencyKey != null) {
+                                request.addHeader("Idempotency-Key", idempotencyKey + "-" + bankAccountId);
+                            }
+                            return request;
+                        })
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bankAccountId\":" + bankAccountId + ",\"amount\":25.00}"))
+                .andExpect(expectedStatus);
+    }
+}
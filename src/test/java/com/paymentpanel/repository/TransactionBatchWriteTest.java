@@ -0,0 +1,96 @@
+package com.paymentpanel.repository;
+
+import com.paymentpanel.SqlStatementCounter;
+import com.paymentpanel.SqlStatementCountingConfiguration;
+import com.paymentpanel.model.BankAccount;
+import com.paymentpanel.model.Transaction;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SqlStatementCountingConfiguration.class)
+class TransactionBatchWriteTest {
+    
+    private static final int ROWS = 120;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private SqlStatementCounter statementCounter;
+    
+    private BankAccount bankAccount;
+    
+    @BeforeEach
+    void setUp() {
+        bankAccount = new BankAccount();
+        bankAccount.setBankName("Test Bank");
+        bankAccount.setAccountOwner("Test Owner");
+        bankAccount.setIban("TR000000000000000000000001");
+        bankAccount = bankAccountRepository.saveAndFlush(bankAccount);
+        statementCounter.reset();
+    }
+    
+    @Test
+    void insertsAreSentInBatchesOfFifty() {
+        transactionRepository.saveAll(newTransactions());
+        entityManager.flush();
+        
+        List<SqlStatementCounter.Execution> inserts = statementCounter.executionsStartingWith("insert into transactions");
+        assertEquals(3, inserts.size(), "one round trip per 50 rows");
+        assertTrue(inserts.stream().allMatch(SqlStatementCounter.Execution::batch));
+        assertEquals(ROWS, inserts.stream().mapToInt(SqlStatementCounter.Execution::rows).sum());
+        
+        // The pooled sequence hands out 50 ids per call; the very first use reads it one extra time
+        long sequenceCalls = statementCounter.getExecutions().stream()
+                .filter(execution -> execution.sql().contains("transactions_id_seq"))
+                .count();
+        assertTrue(sequenceCalls <= 4, "expected at most 4 sequence calls but was " + sequenceCalls);
+    }
+    
+    @Test
+    void updatesAreSentInBatchesOfFifty() {
+        List<Transaction> transactions = transactionRepository.saveAll(newTransactions());
+        entityManager.flush();
+        statementCounter.reset();
+        
+        transactions.forEach(transaction -> transaction.setStatus("APPROVED"));
+        entityManager.flush();
+        
+        List<SqlStatementCounter.Execution> updates = statementCounter.executionsStartingWith("update transactions");
+        assertEquals(3, updates.size(), "one round trip per 50 rows");
+        assertEquals(ROWS, updates.stream().mapToInt(SqlStatementCounter.Execution::rows).sum());
+    }
+    
+    private List<Transaction> newTransactions() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setBankAccount(bankAccount);
+            transaction.setAmount(new BigDecimal("100.00"));
+            transaction.setStatus("PENDING");
+            transaction.setInternalId("BATCH" + i);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,68 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.request.BankAccountRequest;
+import com.paymentpanel.dto.request.TransactionRequest;
+import com.paymentpanel.dto.response.BankAccountResponse;
+import com.paymentpanel.exception.ValidationException;
+import com.paymentpanel.repository.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class BankAccountSnapshotTest {
+    
+    @Autowired
+    private BankAccountService bankAccountService;
+    
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    
+    @Autowired
+    private TransactionService transactionService;
+    
+    @Test
+    void activeAccountsWithoutABankNameSortLast() {
+        BankAccountSnapshot snapshot = BankAccountSnapshot.of(1, List.of(
+                account(1L, null), account(2L, "Beta"), account(3L, "Alpha")));
+        
+        assertEquals(List.of(3L, 2L, 1L), snapshot.activeAccounts().stream()
+                .map(BankAccountResponse::getId)
+                .toList());
+    }
+    
+    @Test
+    void creatingAgainstAnAccountDeletedElsewhereIsAValidationError() {
+        BankAccountRequest bankAccount = new BankAccountRequest();
+        bankAccount.setBankName("Stale Bank");
+        bankAccount.setAccountOwner("Stale Owner");
+        bankAccount.setIban("TR990000000000000000000005");
+        Long bankAccountId = bankAccountService.createBankAccount(bankAccount).getId();
+        
+        // Deleted without an event, as another node would; this node's snapshot still lists the account
+        bankAccountRepository.deleteById(bankAccountId);
+        
+        TransactionRequest request = new TransactionRequest();
+        request.setBankAccountId(bankAccountId);
+        request.setAmount(new BigDecimal("100.00"));
+        
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> transactionService.createTransaction(request));
+        assertEquals("Bank account is not available", e.getMessage());
+    }
+    
+    // Helper methods
+    private static BankAccountResponse account(Long id, String bankName) {
+        BankAccountResponse account = new BankAccountResponse();
+        account.setId(id);
+        account.setBankName(bankName);
+        account.setStatus("ACTIVE");
+        return account;
+    }
+}
@@ -0,0 +1,54 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRecordReaderTest {
+    
+    @Test
+    void quotedFieldsMayHoldSeparatorsEscapedQuotesAndLineBreaks() throws IOException {
+        CsvRecordReader reader = reader("1,\"a, b\",\"say \"\"hi\"\"\",\"two\nlines\"\n2,\"\"\"\",\"\"\n");
+        
+        assertEquals(List.of("1", "a, b", "say \"hi\"", "two\nlines"), reader.next());
+        assertEquals(List.of("2", "\"", ""), reader.next());
+        assertNull(reader.next());
+    }
+    
+    @Test
+    void recordsEndOnCrLfLfOrTheEndOfTheInput() throws IOException {
+        CsvRecordReader reader = reader("a,b\r\nc,d\ne,f");
+        
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(List.of("c", "d"), reader.next());
+        assertEquals(List.of("e", "f"), reader.next(), "the last record needs no line break");
+        assertNull(reader.next());
+    }
+    
+    @Test
+    void emptyFieldsAreKept() throws IOException {
+        CsvRecordReader reader = reader(",x,,\r\n\r\n");
+        
+        assertEquals(List.of("", "x", "", ""), reader.next());
+        assertEquals(List.of(""), reader.next(), "a blank line is a record with one empty field");
+        assertNull(reader.next());
+    }
+    
+    @Test
+    void malformedInputIsRejected() throws IOException {
+        assertThrows(ValidationException.class, () -> reader("1,\"open\n").next());
+        assertThrows(ValidationException.class, () -> new CsvRecordReader(new StringReader("12345,6789"), 8).next());
+    }
+    
+    // Helper methods
+    private static CsvRecordReader reader(String csv) {
+        return new CsvRecordReader(new StringReader(csv), 10_000);
+    }
+}
@@ -0,0 +1,79 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.response.ProcessingTimeResponse;
+import com.paymentpanel.dto.response.StatisticsResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ProcessingTimeSketchTest {
+    
+    // Monday 2002-04-01, so both days fall into one week and one month
+    private static final LocalDate MONDAY = LocalDate.of(2002, 4, 1);
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private StatisticsAccumulator statisticsAccumulator;
+    
+    @Test
+    void sketchesSurviveEncodingAndAddUp() {
+        LatencySketch first = LatencySketch.of(10, 20);
+        LatencySketch second = LatencySketch.decode(LatencySketch.of(30, -5).encode());
+        
+        LatencySketch merged = first.plus(second);
+        assertEquals(4, merged.count());
+        assertEquals(0L, merged.percentile(0));
+        assertEquals(30L, merged.percentile(100));
+        
+        assertNull(LatencySketch.EMPTY.encode());
+        assertTrue(LatencySketch.decode(new byte[] {1, 2, 3}).isEmpty());
+    }
+    
+    @Test
+    void percentilesComeFromStoredAndPendingSketches() {
+        for (long seconds = 1; seconds <= 100; seconds++) {
+            statisticsAccumulator.recordApproved(MONDAY, seconds);
+        }
+        statisticsAccumulator.recordRejected(MONDAY.plusDays(1), 10);
+        statisticsAccumulator.recordRejected(MONDAY.plusDays(1), 20);
+        statisticsAccumulator.recordRejected(MONDAY.plusDays(1), 30);
+        statisticsService.flushStatistics();
+        
+        // Not flushed yet, still part of every answer
+        statisticsAccumulator.recordApproved(MONDAY.plusDays(1), 1000);
+        
+        StatisticsResponse monday = statisticsService.getStatisticsByDate(MONDAY);
+        assertEquals(50L, monday.getApprovalTimeP50());
+        assertEquals(90L, monday.getApprovalTimeP90());
+        assertEquals(99L, monday.getApprovalTimeP99());
+        assertNull(monday.getRejectionTimeP50());
+        
+        StatisticsResponse tuesday = statisticsService.getStatisticsByDate(MONDAY.plusDays(1));
+        assertEquals(20L, tuesday.getRejectionTimeP50());
+        assertEquals(30L, tuesday.getRejectionTimeP99());
+        
+        List<StatisticsResponse> weeks = statisticsService.getStatisticsForDateRange(MONDAY, MONDAY, "week");
+        assertEquals(1, weeks.size());
+        assertEquals(51L, weeks.get(0).getApprovalTimeP50());
+        assertEquals(100L, weeks.get(0).getApprovalTimeP99());
+        assertEquals(20L, weeks.get(0).getRejectionTimeP50());
+        
+        ProcessingTimeResponse range = statisticsService.getProcessingTimesForDateRange(MONDAY, MONDAY.plusDays(1));
+        assertEquals(101L, range.getApprovalCount());
+        assertEquals(51L, range.getApprovalTimeP50());
+        assertEquals(91L, range.getApprovalTimeP90());
+        assertEquals(100L, range.getApprovalTimeP99());
+        assertEquals(3L, range.getRejectionCount());
+        assertEquals(30L, range.getRejectionTimeP90());
+    }
+}
@@ -0,0 +1,49 @@
+package com.paymentpanel.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimiterTest {
+    
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    
+    // Starts near the end of the nanoTime range, so the buckets have to cope with it wrapping
+    private final AtomicLong clock = new AtomicLong(Long.MAX_VALUE - SECOND);
+    
+    @Test
+    void bucketsAllowABurstThenRefillAtTheirRate() {
+        RateLimiter<String> limiter = new RateLimiter<>(3, 2, 100, clock::get);
+        
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(SECOND / 2, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("b"), "every key has its own bucket");
+        
+        clock.addAndGet(SECOND / 4);
+        assertEquals(SECOND / 4, limiter.tryAcquire("a"));
+        
+        clock.addAndGet(SECOND);
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(SECOND / 4, limiter.tryAcquire("a"));
+        
+        // Idle time beyond a full bucket is not saved up
+        clock.addAndGet(60 * SECOND);
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(SECOND / 2, limiter.tryAcquire("a"));
+    }
+    
+    @Test
+    void limitsMustAllowSomething() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter<String>(0, 1, 100));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter<String>(1, 0, 100));
+    }
+}
@@ -0,0 +1,102 @@
+package com.paymentpanel.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeTransactionIdGeneratorTest {
+    
+    @Test
+    void concurrentThreadsNeverReceiveDuplicateIds() throws Exception {
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(7, System::currentTimeMillis);
+        int threads = 16;
+        int idsPerThread = 50_000;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    String previous = null;
+                    for (int i = 0; i < idsPerThread; i++) {
+                        String id = generator.nextId();
+                        assertTrue(ids.add(id), "duplicate id " + id);
+                        // Each thread observes strictly increasing IDs
+                        assertTrue(previous == null || id.compareTo(previous) > 0);
+                        previous = id;
+                    }
+                    return null;
+                }));
+            }
+            
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+    
+    @Test
+    void idsAreThirtyTwoUppercaseHexCharacters() {
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1023, System::currentTimeMillis);
+        
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(generator.nextId().matches("[0-9A-F]{32}"));
+        }
+    }
+    
+    // Neighbouring IDs share the snowflake prefix pattern but not the random half
+    @Test
+    void idsEndInARandomPartThatCannotBeDerivedFromANeighbour() {
+        AtomicLong clock = new AtomicLong(SnowflakeTransactionIdGenerator.EPOCH_MILLIS + 1_000);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(5, clock::get);
+        
+        String first = generator.nextId();
+        String second = generator.nextId();
+        
+        assertEquals(SnowflakeTransactionIdGenerator.format(Long.parseUnsignedLong(first.substring(0, 16), 16) + 1),
+                second.substring(0, 16));
+        assertNotEquals(first.substring(16), second.substring(16));
+    }
+    
+    @Test
+    void idsKeepIncreasingWhenTheClockStepsBackOrTheSequenceRunsOut() {
+        AtomicLong clock = new AtomicLong(SnowflakeTransactionIdGenerator.EPOCH_MILLIS + 1_000);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(3, clock::get);
+        
+        long previous = generator.nextLong();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.addAndGet(-500);
+            }
+            long next = generator.nextLong();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+    
+    @Test
+    void rejectsNodeIdsOutsideTheTenBitRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionIdGenerator(1024, System::currentTimeMillis));
+    }
+}
@@ -0,0 +1,121 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.request.BankAccountRequest;
+import com.paymentpanel.dto.response.StatisticsRebuildResponse;
+import com.paymentpanel.dto.response.StatisticsResponse;
+import com.paymentpanel.exception.ValidationException;
+import com.paymentpanel.repository.ArchivedTransactionRepository;
+import com.paymentpanel.service.StatisticsAccumulator.StatisticsDelta;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class StatisticsRebuildTest {
+    
+    // Wednesday 2003-03-05; the next day falls into the same week and month
+    private static final LocalDate DAY = LocalDate.of(2003, 3, 5);
+    
+    @Autowired
+    private StatisticsRebuilder statisticsRebuilder;
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private StatisticsAccumulator statisticsAccumulator;
+    
+    @Autowired
+    private BankAccountService bankAccountService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void rebuiltDaysAndRollupsMatchTheTransactions() throws Exception {
+        BankAccountRequest bankAccount = new BankAccountRequest();
+        bankAccount.setBankName("Rebuild Bank");
+        bankAccount.setAccountOwner("Rebuild Owner");
+        bankAccount.setIban("TR990000000000000000000002");
+        Long bankAccountId = bankAccountService.createBankAccount(bankAccount).getId();
+        
+        insert(9_003_000_001L, bankAccountId, "10.00", "APPROVED", DAY.atTime(10, 0), 100);
+        insert(9_003_000_002L, bankAccountId, "20.00", "REJECTED", DAY.atTime(11, 0), 30);
+        insert(9_003_000_003L, bankAccountId, "5.00", "PENDING", DAY.atTime(12, 0), 0);
+        insert(9_003_000_004L, bankAccountId, "7.00", "PENDING", DAY.plusDays(1).atTime(8, 0), 0);
+        insert(9_003_000_005L, bankAccountId, "40.00", "APPROVED", DAY.atTime(9, 0), 200);
+        archive(9_003_000_005L);
+        
+        // Counters that drifted away from the transactions
+        statisticsAccumulator.record(DAY, new StatisticsDelta(50, 40, 0, 10, 100000, 4000));
+        statisticsService.flushStatistics();
+        
+        statisticsRebuilder.start(DAY, DAY.plusDays(1));
+        StatisticsRebuildResponse progress = awaitRebuild();
+        assertEquals("COMPLETED", progress.getStatus());
+        assertEquals(2, progress.getCompletedDays());
+        assertEquals(5L, progress.getTransactionCount());
+        
+        StatisticsResponse day = statisticsService.getStatisticsByDate(DAY);
+        assertEquals(4, day.getTransactionCount());
+        assertEquals(2, day.getApprovedCount());
+        assertEquals(1, day.getRejectedCount());
+        assertEquals(1, day.getPendingCount());
+        assertEquals(new BigDecimal("75.00"), day.getTotalAmount());
+        assertEquals(150, day.getAverageProcessingTime());
+        assertEquals(100L, day.getApprovalTimeP50());
+        assertEquals(200L, day.getApprovalTimeP99());
+        assertEquals(30L, day.getRejectionTimeP50());
+        
+        for (String granularity : List.of("week", "month")) {
+            List<StatisticsResponse> periods = statisticsService.getStatisticsForDateRange(DAY, DAY, granularity);
+            assertEquals(1, periods.size());
+            assertEquals(5, periods.get(0).getTransactionCount());
+            assertEquals(2, periods.get(0).getPendingCount());
+            assertEquals(new BigDecimal("82.00"), periods.get(0).getTotalAmount());
+            assertEquals(200L, periods.get(0).getApprovalTimeP99());
+        }
+    }
+    
+    @Test
+    void invalidRangesAreRejected() {
+        assertThrows(ValidationException.class, () -> statisticsRebuilder.start(DAY, DAY.minusDays(1)));
+        assertThrows(ValidationException.class, () -> statisticsRebuilder.start(DAY, DAY.plusYears(10)));
+    }
+    
+    private StatisticsRebuildResponse awaitRebuild() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            StatisticsRebuildResponse progress = statisticsRebuilder.getProgress();
+            if (!"RUNNING".equals(progress.getStatus())) {
+                return progress;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Statistics rebuild did not finish");
+    }
+    
+    private void insert(long id, Long bankAccountId, String amount, String status, LocalDateTime createdAt,
+                        long processingSeconds) {
+        LocalDateTime processedAt = createdAt.plusSeconds(processingSeconds);
+        jdbcTemplate.update("INSERT INTO transactions (id, internal_id, bank_account_id, amount, status, created_at, "
+                        + "approved_at, rejected_at, payment_confirmed) VALUES (?, ?, ?, ?, ?, ?, ?, ?, FALSE)",
+                id, "RB" + id, bankAccountId, new BigDecimal(amount), status, createdAt,
+                status.equals("APPROVED") ? processedAt : null, status.equals("REJECTED") ? processedAt : null);
+    }
+    
+    private void archive(long id) {
+        jdbcTemplate.update("INSERT INTO transactions_archive (" + ArchivedTransactionRepository.COPY_COLUMNS
+                + ", archived_at) SELECT " + ArchivedTransactionRepository.COPY_COLUMNS
+                + ", CURRENT_TIMESTAMP FROM transactions WHERE id = ?", id);
+        jdbcTemplate.update("DELETE FROM transactions WHERE id = ?", id);
+    }
+}
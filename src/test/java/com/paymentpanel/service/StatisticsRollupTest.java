@@ -0,0 +1,66 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.response.StatisticsResponse;
+import com.paymentpanel.exception.ValidationException;
+import com.paymentpanel.service.StatisticsAccumulator.StatisticsDelta;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class StatisticsRollupTest {
+    
+    // Monday 2001-01-29 starts a week that runs into February
+    private static final LocalDate MONDAY = LocalDate.of(2001, 1, 29);
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private StatisticsAccumulator statisticsAccumulator;
+    
+    @Test
+    void weeksAndMonthsAddUpTheDays() {
+        statisticsAccumulator.record(MONDAY, new StatisticsDelta(3, 2, 0, 1, 30000, 200));
+        statisticsAccumulator.record(MONDAY.plusDays(2), new StatisticsDelta(2, 1, 1, 0, 5000, 100));
+        statisticsAccumulator.record(MONDAY.plusDays(3), new StatisticsDelta(1, 0, 0, 1, 1000, 0));
+        statisticsService.flushStatistics();
+        
+        // Flushed or not, a change counts towards its day, week and month
+        statisticsAccumulator.record(MONDAY.plusDays(3), new StatisticsDelta(1, 1, 0, 0, 2000, 100));
+        
+        List<StatisticsResponse> days = statisticsService.getStatisticsForDateRange(MONDAY, MONDAY.plusDays(6), "day");
+        assertEquals(3, days.size());
+        
+        List<StatisticsResponse> weeks = statisticsService.getStatisticsForDateRange(MONDAY.plusDays(1), MONDAY.plusDays(5), "week");
+        assertEquals(1, weeks.size());
+        assertEquals(MONDAY, weeks.get(0).getDate());
+        assertEquals(7, weeks.get(0).getTransactionCount());
+        assertEquals(4, weeks.get(0).getApprovedCount());
+        assertEquals(1, weeks.get(0).getRejectedCount());
+        assertEquals(2, weeks.get(0).getPendingCount());
+        assertEquals(new BigDecimal("380.00"), weeks.get(0).getTotalAmount());
+        assertEquals(100, weeks.get(0).getAverageProcessingTime());
+        
+        List<StatisticsResponse> months = statisticsService.getStatisticsForDateRange(
+                LocalDate.of(2001, 1, 1), LocalDate.of(2001, 2, 28), "MONTH");
+        assertEquals(List.of(LocalDate.of(2001, 2, 1), LocalDate.of(2001, 1, 1)),
+                months.stream().map(StatisticsResponse::getDate).toList());
+        assertEquals(2, months.get(0).getTransactionCount());
+        assertEquals(5, months.get(1).getTransactionCount());
+        assertEquals(new BigDecimal("350.00"), months.get(1).getTotalAmount());
+    }
+    
+    @Test
+    void unknownGranularityIsRejected() {
+        assertThrows(ValidationException.class,
+                () -> statisticsService.getStatisticsForDateRange(MONDAY, MONDAY, "year"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.request.BankAccountRequest;
+import com.paymentpanel.dto.request.TransactionRequest;
+import com.paymentpanel.dto.request.UserRequest;
+import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.repository.ArchivedTransactionRepository;
+import com.paymentpanel.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A chunk size of 1 makes every archived row its own chunk
+@SpringBootTest(properties = "archive.chunk-size=1")
+class TransactionArchiverTest {
+    
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+    
+    @Autowired
+    private TransactionService transactionService;
+    
+    @Autowired
+    private TransactionTrackingCache transactionTrackingCache;
+    
+    @Autowired
+    private BankAccountService bankAccountService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    
+    @Test
+    void finalizedTransactionsMoveToTheArchiveAndStayReadable() throws Exception {
+        BankAccountRequest bankAccount = new BankAccountRequest();
+        bankAccount.setBankName("Archive Bank");
+        bankAccount.setAccountOwner("Archive Owner");
+        bankAccount.setIban("TR990000000000000000000001");
+        Long bankAccountId = bankAccountService.createBankAccount(bankAccount).getId();
+        
+        UserRequest user = new UserRequest();
+        user.setUsername("archiveuser");
+        user.setEmail("archiveuser@example.com");
+        Long userId = userService.createUser(user).getId();
+        
+        TransactionResponse approved = createTransaction(bankAccountId, userId);
+        TransactionResponse rejected = createTransaction(bankAccountId, userId);
+        TransactionResponse pending = createTransaction(bankAccountId, userId);
+        transactionService.approveTransaction(approved.getId(), "admin", null);
+        transactionService.rejectTransaction(rejected.getId(), "admin", "duplicate");
+        
+        int archived = transactionArchiver.archiveFinalizedBefore(LocalDateTime.now().plusMinutes(1));
+        
+        assertTrue(archived >= 2);
+        assertFalse(transactionRepository.existsById(approved.getId()));
+        assertFalse(transactionRepository.existsById(rejected.getId()));
+        assertTrue(archivedTransactionRepository.existsById(approved.getId()));
+        assertTrue(transactionRepository.existsById(pending.getId()), "pending transactions are never archived");
+        
+        // Lookups fall through to the archive
+        assertEquals("APPROVED", transactionService.getTransactionById(approved.getId()).getStatus());
+        transactionTrackingCache.invalidateAfterCommit(List.of(rejected.getInternalId()));
+        TransactionResponse tracked = transactionService.getTransactionByInternalId(rejected.getInternalId());
+        assertEquals("REJECTED", tracked.getStatus());
+        assertEquals("duplicate", tracked.getNote());
+        assertEquals("Archive Bank", tracked.getBankName());
+        
+        List<Long> userTransactionIds = transactionService.getTransactionsByUserId(userId).stream()
+                .map(TransactionResponse::getId)
+                .toList();
+        assertEquals(List.of(pending.getId(), rejected.getId(), approved.getId()), userTransactionIds);
+        
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        transactionService.exportTransactions(LocalDate.now(), LocalDate.now(), null, bankAccountId, "ndjson", export);
+        List<String> lines = export.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).contains(approved.getInternalId()), "export stays in creation order");
+        assertTrue(lines.get(2).contains(pending.getInternalId()));
+    }
+    
+    private TransactionResponse createTransaction(Long bankAccountId, Long userId) {
+        TransactionRequest request = new TransactionRequest();
+        request.setBankAccountId(bankAccountId);
+        request.setUserId(userId);
+        request.setAmount(new BigDecimal("125.00"));
+        return transactionService.createTransaction(request);
+    }
+}
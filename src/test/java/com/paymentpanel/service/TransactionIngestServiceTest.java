@@ -0,0 +1,82 @@
+package com.paymentpanel.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentpanel.dto.request.BankAccountRequest;
+import com.paymentpanel.dto.response.TransactionIngestSummary;
+import com.paymentpanel.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A batch size of 2 makes the three rows span two batches
+@SpringBootTest(properties = "ingest.batch-size=2")
+class TransactionIngestServiceTest {
+    
+    @Autowired
+    private TransactionIngestService transactionIngestService;
+    
+    @Autowired
+    private BankAccountService bankAccountService;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    void csvUploadsCreateValidRowsAndReportTheRest() throws Exception {
+        BankAccountRequest bankAccount = new BankAccountRequest();
+        bankAccount.setBankName("Ingest Bank");
+        bankAccount.setAccountOwner("Ingest Owner");
+        bankAccount.setIban("TR990000000000000000000002");
+        Long bankAccountId = bankAccountService.createBankAccount(bankAccount).getId();
+        
+        // Saved by Excel: a byte order mark, CRLF line breaks and a quoted description spanning two lines
+        String csv = "\uFEFFbankAccountId,amount,description\r\n"
+                + bankAccountId + ",150.00,\"first, \"\"quoted\"\"\r\nline\"\r\n"
+                + bankAccountId + ",0,too small\r\n"
+                + bankAccountId + ",75.50,\r\n";
+        
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TransactionIngestService.Upload upload = transactionIngestService.open("csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        TransactionIngestSummary summary = transactionIngestService.ingest(upload, output);
+        
+        assertEquals(3, summary.getTotalRows());
+        assertEquals(2, summary.getCreatedCount());
+        assertEquals(1, summary.getFailedCount());
+        assertNull(summary.getError());
+        
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(4, lines.size(), "one line per row and a summary");
+        
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertTrue(first.get("success").asBoolean());
+        assertEquals("first, \"quoted\"\r\nline", transactionRepository.findById(first.get("id").asLong())
+                .orElseThrow().getDescription());
+        
+        JsonNode second = objectMapper.readTree(lines.get(1));
+        assertFalse(second.get("success").asBoolean());
+        assertEquals(2, second.get("row").asLong());
+        
+        JsonNode third = objectMapper.readTree(lines.get(2));
+        assertTrue(third.get("success").asBoolean());
+        assertEquals(0, new BigDecimal("75.50").compareTo(transactionRepository.findById(third.get("id").asLong())
+                .orElseThrow().getAmount()));
+        assertNull(transactionRepository.findById(third.get("id").asLong()).orElseThrow().getDescription(),
+                "empty fields are stored as null");
+    }
+}
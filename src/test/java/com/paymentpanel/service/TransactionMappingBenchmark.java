@@ -0,0 +1,81 @@
+package com.paymentpanel.service;
+
+import com.paymentpanel.dto.response.TransactionResponse;
+import com.paymentpanel.model.BankAccount;
+import com.paymentpanel.model.Transaction;
+import com.paymentpanel.model.User;
+import com.paymentpanel.repository.TransactionView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Entity-to-response mapping (write paths) and view-to-response mapping (read paths), for an approved transaction
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionMappingBenchmark {
+    
+    private final TransactionService transactionService = new TransactionService();
+    
+    private Transaction transaction;
+    
+    private TransactionView view;
+    
+    @Setup
+    public void setUp() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 14, 10, 15, 30);
+        LocalDateTime approvedAt = createdAt.plusMinutes(7);
+        
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("customer42");
+        
+        BankAccount bankAccount = new BankAccount();
+        bankAccount.setId(7L);
+        bankAccount.setBankName("Ziraat Bankasi");
+        bankAccount.setAccountOwner("Payment Panel Ltd");
+        bankAccount.setIban("TR330006100519786457841326");
+        
+        transaction = new Transaction();
+        transaction.setId(1_000_000L);
+        transaction.setInternalId("0523084A1C2B7000");
+        transaction.setUser(user);
+        transaction.setBankAccount(bankAccount);
+        transaction.setAmount(new BigDecimal("1250.00"));
+        transaction.setDescription("Deposit");
+        transaction.setStatus("APPROVED");
+        transaction.setCreatedAt(createdAt);
+        transaction.setApprovedAt(approvedAt);
+        transaction.setApprovedBy("admin");
+        transaction.setPaymentConfirmed(true);
+        transaction.setPaymentDate(createdAt.plusMinutes(2));
+        
+        view = new TransactionView(1_000_000L, "0523084A1C2B7000", 42L, "customer42", 7L, "Ziraat Bankasi",
+                "Payment Panel Ltd", "TR330006100519786457841326", new BigDecimal("1250.00"), "Deposit", "APPROVED",
+                createdAt, approvedAt, "admin", null, null, null, true, createdAt.plusMinutes(2));
+    }
+    
+    @Benchmark
+    public TransactionResponse mapEntity() {
+        return transactionService.mapToResponse(transaction);
+    }
+    
+    @Benchmark
+    public TransactionResponse mapView() {
+        return transactionService.mapToResponse(view);
+    }
+}